@@ -1,6 +1,15 @@
 package org.junit.contrib.java.lang.system;
 
+import static java.lang.System.getProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
 import org.junit.contrib.java.lang.system.internal.RestoreSpecificSystemProperties;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties.Overlay;
 import org.junit.rules.ExternalResource;
 
 /**
@@ -30,6 +39,21 @@ import org.junit.rules.ExternalResource;
  * public final TestRule clearSystemProperties
  *   = new ClearSystemProperties("first", "second", "third");
  * </pre>
+ * <p>Whole namespaces of properties can be cleared by prefixes or glob
+ * patterns.
+ * <pre>
+ * &#064;Rule
+ * public final TestRule clearProxyProperties
+ *   = ClearSystemProperties.withPrefix("http.proxy", "https.proxy");
+ *
+ * &#064;Rule
+ * public final TestRule clearCacheProperties
+ *   = ClearSystemProperties.matching("com.acme.*.cache.*");
+ * </pre>
+ * The properties are scanned once and only the matching properties are
+ * recorded. They are restored while the system properties are locked once.
+ * <p>Tests can run in parallel if the properties are cleared for the test's
+ * thread only ({@link #isolatedPerThread()}).
  * <h2>Clear property for a single test</h2>
  * <p>If you want to clear a property for a single test then you can
  * use
@@ -49,6 +73,10 @@ import org.junit.rules.ExternalResource;
 public class ClearSystemProperties extends ExternalResource {
 	private final RestoreSpecificSystemProperties restoreSystemProperty = new RestoreSpecificSystemProperties();
 	private final String[] properties;
+	private final Pattern pattern;
+	private boolean isolatedPerThread = false;
+	private boolean includeSpawnedThreads = false;
+	private Overlay overlay;
 
 	/**
 	 * Creates a {@code ClearSystemProperties} rule that clears the specified
@@ -58,7 +86,67 @@ public class ClearSystemProperties extends ExternalResource {
 	 * @param properties the properties' names.
 	 */
 	public ClearSystemProperties(String... properties) {
+		this(properties, null);
+	}
+
+	private ClearSystemProperties(String[] properties, Pattern pattern) {
 		this.properties = properties;
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Creates a {@code ClearSystemProperties} rule that clears all
+	 * properties whose names start with one of the specified prefixes.
+	 *
+	 * @param prefixes the prefixes of the properties' names.
+	 * @return the new rule.
+	 * @since 1.10.0
+	 */
+	public static ClearSystemProperties withPrefix(String... prefixes) {
+		StringBuilder regex = new StringBuilder();
+		for (String prefix : prefixes)
+			regex.append((regex.length() == 0) ? "" : "|")
+				.append(Pattern.quote(prefix)).append(".*");
+		return new ClearSystemProperties(new String[0], compile(regex));
+	}
+
+	/**
+	 * Creates a {@code ClearSystemProperties} rule that clears all
+	 * properties whose names match one of the specified glob patterns. The
+	 * wildcard {@code *} matches any sequence of characters and the wildcard
+	 * {@code ?} matches a single character.
+	 *
+	 * @param globs the patterns of the properties' names.
+	 * @return the new rule.
+	 * @since 1.10.0
+	 */
+	public static ClearSystemProperties matching(String... globs) {
+		StringBuilder regex = new StringBuilder();
+		for (String glob : globs) {
+			if (regex.length() != 0)
+				regex.append("|");
+			appendGlobAsRegex(regex, glob);
+		}
+		return new ClearSystemProperties(new String[0], compile(regex));
+	}
+
+	private static void appendGlobAsRegex(StringBuilder regex, String glob) {
+		int start = 0;
+		for (int i = 0; i < glob.length(); ++i) {
+			char c = glob.charAt(i);
+			if (c == '*' || c == '?') {
+				if (i > start)
+					regex.append(Pattern.quote(glob.substring(start, i)));
+				regex.append((c == '*') ? ".*" : ".");
+				start = i + 1;
+			}
+		}
+		if (start < glob.length())
+			regex.append(Pattern.quote(glob.substring(start)));
+	}
+
+	private static Pattern compile(StringBuilder regex) {
+		return Pattern.compile((regex.length() == 0) ? "(?!)" : regex.toString());
 	}
 
 	/**
@@ -96,19 +184,72 @@ public class ClearSystemProperties extends ExternalResource {
 		System.clearProperty(property);
 	}
 
+	/**
+	 * Clear the properties for the test's thread only. The test does not see
+	 * the properties, but other threads still see their values. Therefore
+	 * tests that use this rule can run in parallel.
+	 *
+	 * @return this rule.
+	 * @since 1.10.0
+	 */
+	public ClearSystemProperties isolatedPerThread() {
+		isolatedPerThread = true;
+		includeSpawnedThreads = false;
+		return this;
+	}
+
+	/**
+	 * Clear the properties for the test's thread and for the threads that are
+	 * created by it (or by these threads) while the test runs. All other
+	 * threads still see the values of the properties.
+	 *
+	 * @return this rule.
+	 * @since 1.10.0
+	 */
+	public ClearSystemProperties isolatedPerThreadIncludingSpawnedThreads() {
+		isolatedPerThread = true;
+		includeSpawnedThreads = true;
+		return this;
+	}
+
 	@Override
 	protected void before() throws Throwable {
+		if (isolatedPerThread)
+			overlay = TrackingProperties.install()
+				.openOverlay(includeSpawnedThreads);
 		clearProperties();
 	}
 
 	@Override
 	protected void after() {
 		restoreOriginalValue();
+		if (overlay != null)
+			overlay.close();
 	}
 
 	private void clearProperties() {
-		for (String property : properties)
-			clearProperty(property);
+		Properties systemProperties = getProperties();
+		synchronized (systemProperties) {
+			for (String property : properties)
+				clear(systemProperties, property);
+			if (pattern != null)
+				for (String property : findMatchingProperties(systemProperties))
+					clear(systemProperties, property);
+		}
+	}
+
+	private List<String> findMatchingProperties(Properties systemProperties) {
+		List<String> matchingProperties = new ArrayList<String>();
+		for (Object key : systemProperties.keySet())
+			if (key instanceof String && pattern.matcher((String) key).matches())
+				matchingProperties.add((String) key);
+		return matchingProperties;
+	}
+
+	private void clear(Properties systemProperties, String property) {
+		restoreSystemProperty.add(property,
+			systemProperties.getProperty(property));
+		systemProperties.remove(property);
 	}
 
 	private void restoreOriginalValue() {
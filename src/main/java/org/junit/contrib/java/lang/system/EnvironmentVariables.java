@@ -0,0 +1,89 @@
+package org.junit.contrib.java.lang.system;
+
+import static java.lang.System.getenv;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.contrib.java.lang.system.internal.EnvironmentVariableAccess;
+import org.junit.rules.ExternalResource;
+
+/**
+ * The {@code EnvironmentVariables} rule sets environment variables for a
+ * test and restores their original values when the test finishes (whether
+ * it passes or fails). Only the variables that have been set are restored.
+ * <pre>
+ * public class EnvironmentVariablesTest {
+ *   &#064;Rule
+ *   public final EnvironmentVariables environmentVariables
+ *     = new EnvironmentVariables().set("FIRST", "first value");
+ *
+ *   &#064;Test
+ *   public void setEnvironmentVariable() {
+ *     environmentVariables.set("SECOND", "second value");
+ *     assertEquals("first value", System.getenv("FIRST"));
+ *     assertEquals("second value", System.getenv("SECOND"));
+ *   }
+ * }
+ * </pre>
+ * Variables that are set when the rule is created are set before each
+ * test. Variables that are set during the test are set immediately. A
+ * variable is removed by setting it to {@code null}.
+ * <p>The rule changes the environment of the running JVM. It does not fork
+ * a JVM. There is no API for changing the environment. Therefore the rule
+ * uses reflection. Java 9 and later versions need the JVM options
+ * <pre>
+ * --add-opens java.base/java.util=ALL-UNNAMED
+ * --add-opens java.base/java.lang=ALL-UNNAMED
+ * </pre>
+ * <p>The environment is shared by all threads. Tests that use this rule
+ * must not run in parallel.
+ *
+ * @since 1.10.0
+ */
+public class EnvironmentVariables extends ExternalResource {
+	private final Map<String, String> variablesOfRule
+		= new LinkedHashMap<String, String>();
+	private final Map<String, String> originalValues
+		= new LinkedHashMap<String, String>();
+	private boolean testIsRunning = false;
+
+	/**
+	 * Sets an environment variable. If the test is not running yet then the
+	 * variable is set when the test starts.
+	 *
+	 * @param name the name of the variable.
+	 * @param value the value of the variable or {@code null} if the
+	 *              variable is removed.
+	 * @return this rule.
+	 */
+	public EnvironmentVariables set(String name, String value) {
+		if (testIsRunning)
+			setVariable(name, value);
+		else
+			variablesOfRule.put(name, value);
+		return this;
+	}
+
+	@Override
+	protected void before() throws Throwable {
+		testIsRunning = true;
+		for (Entry<String, String> variable : variablesOfRule.entrySet())
+			setVariable(variable.getKey(), variable.getValue());
+	}
+
+	private void setVariable(String name, String value) {
+		if (!originalValues.containsKey(name))
+			originalValues.put(name, getenv(name));
+		EnvironmentVariableAccess.set(name, value);
+	}
+
+	@Override
+	protected void after() {
+		for (Entry<String, String> original : originalValues.entrySet())
+			EnvironmentVariableAccess.set(original.getKey(), original.getValue());
+		originalValues.clear();
+		testIsRunning = false;
+	}
+}
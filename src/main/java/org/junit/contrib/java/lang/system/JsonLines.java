@@ -0,0 +1,143 @@
+package org.junit.contrib.java.lang.system;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.contrib.java.lang.system.internal.JsonParser;
+import org.junit.contrib.java.lang.system.internal.LogBuffer;
+
+/**
+ * A view of a log whose lines are JSON texts. Each line is parsed when it is
+ * accessed for the first time. Afterwards the parsed value is reused.
+ * <p>A line is parsed to a tree of {@link Map}s (JSON objects),
+ * {@link List}s (arrays), {@link String}s, {@link Long}s or {@link Double}s
+ * (numbers), {@link Boolean}s and {@code null}. Only lines that are terminated
+ * by a line break are part of the view.
+ *
+ * <pre>
+ *   &#064;Test
+ *   public void logsUserName() {
+ *     System.out.println("{\"event\":\"login\",\"user\":{\"name\":\"Ada\"}}");
+ *     assertEquals("Ada", log.getJsonLines().getField(0, "user.name"));
+ *   }
+ * </pre>
+ *
+ * @see StandardOutputStreamLog#getJsonLines()
+ * @since 1.10.0
+ */
+public class JsonLines {
+	private static final String ENCODING = "UTF-8";
+	private static final Object NOT_PARSED = new Object();
+
+	private final LogBuffer buffer;
+	private final List<Object> values = new ArrayList<Object>();
+	private int numberOfResets;
+
+	JsonLines(LogBuffer buffer) {
+		this.buffer = buffer;
+		this.numberOfResets = buffer.getNumberOfResets();
+	}
+
+	/**
+	 * Returns the number of lines.
+	 *
+	 * @return the number of lines.
+	 */
+	public int size() {
+		return buffer.getNumberOfLines();
+	}
+
+	/**
+	 * Returns the parsed value of a line.
+	 *
+	 * @param index the index of the line.
+	 * @return the parsed value of the line.
+	 * @throws IndexOutOfBoundsException if there is no such line.
+	 * @throws IllegalArgumentException  if the line is not valid JSON.
+	 */
+	public synchronized Object get(int index) {
+		discardValuesIfLogHasBeenCleared();
+		if (index < 0 || index >= buffer.getNumberOfLines())
+			throw new IndexOutOfBoundsException("There is no line " + index
+				+ ". The log has " + buffer.getNumberOfLines() + " lines.");
+		while (values.size() <= index)
+			values.add(NOT_PARSED);
+		Object value = values.get(index);
+		if (value == NOT_PARSED) {
+			value = JsonParser.parse(getLine(index));
+			values.set(index, value);
+		}
+		return value;
+	}
+
+	private void discardValuesIfLogHasBeenCleared() {
+		int currentNumberOfResets = buffer.getNumberOfResets();
+		if (currentNumberOfResets != numberOfResets) {
+			values.clear();
+			numberOfResets = currentNumberOfResets;
+		}
+	}
+
+	private String getLine(int index) {
+		try {
+			return buffer.getLine(index, ENCODING);
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Returns a field of a line. The field is specified by a path of names
+	 * that are separated by dots, e.g. {@code user.name}. Elements of arrays
+	 * are selected by their index, e.g. {@code users.0.name}.
+	 *
+	 * @param index the index of the line.
+	 * @param path  the path of the field.
+	 * @return the value of the field or {@code null} if the line has no such
+	 * field.
+	 * @throws IndexOutOfBoundsException if there is no such line.
+	 * @throws IllegalArgumentException  if the line is not valid JSON.
+	 */
+	public Object getField(int index, String path) {
+		Object value = get(index);
+		for (String name : path.split("\\."))
+			value = getChild(value, name);
+		return value;
+	}
+
+	private Object getChild(Object value, String name) {
+		if (value instanceof Map)
+			return ((Map<?, ?>) value).get(name);
+		else if (value instanceof List)
+			return getElement((List<?>) value, name);
+		else
+			return null;
+	}
+
+	private Object getElement(List<?> array, String name) {
+		try {
+			int index = Integer.parseInt(name);
+			return (index >= 0 && index < array.size()) ? array.get(index) : null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a field of every line.
+	 *
+	 * @param path the path of the field (see {@link #getField(int, String)}).
+	 * @return the values of the field. The list has an element for each line.
+	 * The element is {@code null} if the line has no such field.
+	 * @throws IllegalArgumentException if a line is not valid JSON.
+	 */
+	public List<Object> getFieldOfAllLines(String path) {
+		int size = size();
+		List<Object> fieldValues = new ArrayList<Object>(size);
+		for (int index = 0; index < size; ++index)
+			fieldValues.add(getField(index, path));
+		return fieldValues;
+	}
+}
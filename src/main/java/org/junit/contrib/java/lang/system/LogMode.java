@@ -13,5 +13,15 @@ public enum LogMode {
 	/**
 	 * Record the writes while they are still written to the stream.
 	 */
-	LOG_AND_WRITE_TO_STREAM
+	LOG_AND_WRITE_TO_STREAM,
+
+	/**
+	 * Record the writes and write them to a file instead of the stream. Each
+	 * test has its own file, which is named after the test. The file is
+	 * written by a background thread.
+	 *
+	 * @see org.junit.contrib.java.lang.system.StandardOutputStreamLog#StandardOutputStreamLog(LogMode, java.io.File)
+	 * @see org.junit.contrib.java.lang.system.StandardErrorStreamLog#StandardErrorStreamLog(LogMode, java.io.File)
+	 */
+	LOG_AND_WRITE_TO_FILE
 }
@@ -0,0 +1,47 @@
+package org.junit.contrib.java.lang.system;
+
+import org.junit.contrib.java.lang.system.internal.PromptedInput;
+
+/**
+ * The answers that {@code System.in} provides to the prompts of an
+ * interactive program. It is created by
+ * {@link TextFromStandardInputStream#answerPrompts(org.junit.contrib.java.lang.system.internal.PrintStreamLog)}.
+ *
+ * @since 1.10.0
+ */
+public class PromptAnswers {
+	private final PromptedInput input;
+
+	PromptAnswers(PromptedInput input) {
+		this.input = input;
+	}
+
+	/**
+	 * Adds an answer that is provided by {@code System.in} after the prompt
+	 * has been written. The prompts have to be written in the order of the
+	 * answers.
+	 *
+	 * @param prompt the text that has to be written before the answer is
+	 *               provided.
+	 * @param answer the answer (including a line separator if the program
+	 *               reads lines).
+	 * @return this {@code PromptAnswers}.
+	 */
+	public PromptAnswers answer(String prompt, String answer) {
+		input.addAnswer(prompt, answer);
+		return this;
+	}
+
+	/**
+	 * Sets the maximum time that a read of {@code System.in} waits for the
+	 * next prompt. The read throws an {@code IOException} if the prompt is not
+	 * written within that time. The default timeout is 5 seconds.
+	 *
+	 * @param timeoutMillis the timeout in milliseconds.
+	 * @return this {@code PromptAnswers}.
+	 */
+	public PromptAnswers withTimeout(long timeoutMillis) {
+		input.setTimeout(timeoutMillis);
+		return this;
+	}
+}
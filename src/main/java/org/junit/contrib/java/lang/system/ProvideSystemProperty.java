@@ -1,16 +1,18 @@
 package org.junit.contrib.java.lang.system;
 
 import static java.lang.System.clearProperty;
+import static org.junit.contrib.java.lang.system.internal.PropertiesFileCache.getPropertiesOfFile;
+import static org.junit.contrib.java.lang.system.internal.PropertiesFileCache.getPropertiesOfResource;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Properties;
+import java.util.concurrent.Callable;
 
 import org.junit.contrib.java.lang.system.internal.RestoreSpecificSystemProperties;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties.Overlay;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties.Scope;
 import org.junit.rules.ExternalResource;
 
 /**
@@ -63,6 +65,31 @@ import org.junit.rules.ExternalResource;
  * public final ProvideSystemProperty properties = ProvideSystemProperty
  * 		.fromResource(&quot;example.properties&quot;);
  * </pre>
+ * <h2>Baseline and overlays</h2>
+ * <p>The rule opens a scope that records the original values of the
+ * provided properties. Restoring a scope touches these properties only and
+ * changes of other properties are left to the enclosing scopes (e.g. of
+ * {@link RestoreSystemProperties}). Scopes can be nested. Therefore you can
+ * provide a large baseline of properties once per class and let single
+ * tests change a few properties cheaply.
+ * <pre>
+ * &#064;ClassRule
+ * public static final ProvideSystemProperty baseline = ProvideSystemProperty
+ * 		.fromResource(&quot;test-env.properties&quot;);
+ *
+ * &#064;Rule
+ * public final ProvideSystemProperty overlay
+ *   = new ProvideSystemProperty(&quot;cache.enabled&quot;, &quot;false&quot;);
+ * </pre>
+ * <h2>Parallel tests</h2>
+ * <p>By default the rule changes the system properties of the whole JVM.
+ * Tests that provide different values for the same property can run in
+ * parallel if the properties are provided to the test's thread only.
+ * <pre>
+ * &#064;Rule
+ * public final ProvideSystemProperty provideSystemProperty
+ *   = new ProvideSystemProperty("MyProperty", "MyValue").isolatedPerThread();
+ * </pre>
  * <h2>Set property for a single test</h2>
  * <p>If you want to set a property for a single test then you can use
  * {@link org.junit.contrib.java.lang.system.RestoreSystemProperties}
@@ -79,29 +106,45 @@ import org.junit.rules.ExternalResource;
  * }</pre>
  */
 public class ProvideSystemProperty extends ExternalResource {
-	private final Map<String, String> properties = new LinkedHashMap<String, String>();
+	private final Map<String, Object> properties = new LinkedHashMap<String, Object>();
 	private final RestoreSpecificSystemProperties restoreSystemProperty = new RestoreSpecificSystemProperties();
+	private boolean isolatedPerThread = false;
+	private boolean includeSpawnedThreads = false;
+	private Overlay overlay;
+	private Scope scope;
 
+	/**
+	 * Creates a rule that provides the properties of a properties file. The
+	 * file is parsed once per JVM and parsed again only if it has been
+	 * modified.
+	 *
+	 * @param name the name of the file.
+	 * @return the new rule.
+	 * @throws IOException if the file cannot be read.
+	 */
 	public static ProvideSystemProperty fromFile(String name)
 		throws IOException {
-		FileInputStream fis = new FileInputStream(name);
-		return fromInputStream(fis);
+		return fromProperties(getPropertiesOfFile(name));
 	}
 
+	/**
+	 * Creates a rule that provides the properties of a properties file from
+	 * the class path. The resource is parsed once per JVM.
+	 *
+	 * @param name the name of the resource.
+	 * @return the new rule.
+	 * @throws IOException if the resource cannot be read.
+	 */
 	public static ProvideSystemProperty fromResource(String name)
 		throws IOException {
-		InputStream is = ProvideSystemProperty.class.getResourceAsStream(name);
-		return fromInputStream(is);
+		return fromProperties(
+			getPropertiesOfResource(ProvideSystemProperty.class, name));
 	}
 
-	private static ProvideSystemProperty fromInputStream(InputStream is)
-		throws IOException {
-		Properties p = new Properties();
-		p.load(is);
+	private static ProvideSystemProperty fromProperties(
+			Map<String, String> properties) {
 		ProvideSystemProperty rule = new ProvideSystemProperty();
-		for (Map.Entry<Object, Object> property : p.entrySet())
-			rule.addProperty((String) property.getKey(),
-				(String) property.getValue());
+		rule.properties.putAll(properties);
 		return rule;
 	}
 
@@ -161,25 +204,84 @@ public class ProvideSystemProperty extends ExternalResource {
 		return this;
 	}
 
+	/**
+	 * Provides a property whose value is computed when the property is read
+	 * for the first time. The value is used for the rest of the test. The
+	 * value is not computed if the property is not read. The property is
+	 * absent if the computed value is {@code null}.
+	 * <pre>
+	 * &#064;Rule
+	 * public final ProvideSystemProperty provideSystemProperty
+	 *   = new ProvideSystemProperty("MyProperty", "MyValue")
+	 *     .andLazy("server.port", new Callable&lt;String&gt;() {
+	 *       public String call() throws Exception {
+	 *         return Integer.toString(findFreePort());
+	 *       }
+	 *     });
+	 * </pre>
+	 * <p>The property is not listed by {@link System#getProperties()}'s
+	 * enumerations and views like {@code stringPropertyNames()} or
+	 * {@code entrySet()} before it has been read.
+	 *
+	 * @param name the name of the property.
+	 * @param value computes the value of the property.
+	 * @return this rule.
+	 * @since 1.10.0
+	 */
+	public ProvideSystemProperty andLazy(String name, Callable<String> value) {
+		properties.put(name, value);
+		return this;
+	}
+
 	private void addProperty(String name, String value) {
 		properties.put(name, value);
 	}
 
-	@Override
-	protected void before() throws Throwable {
-		setProperties();
+	/**
+	 * Set the properties for the test's thread only. Other threads still see
+	 * the original values. Therefore tests that use this rule can run in
+	 * parallel, even if they provide different values for the same property.
+	 *
+	 * @return this rule.
+	 * @since 1.10.0
+	 */
+	public ProvideSystemProperty isolatedPerThread() {
+		isolatedPerThread = true;
+		includeSpawnedThreads = false;
+		return this;
 	}
 
-	private void setProperties() {
-		for (Entry<String, String> property : properties.entrySet()) {
-			String name = property.getKey();
-			String value = property.getValue();
-			setProperty(name, value);
-		}
+	/**
+	 * Set the properties for the test's thread and for the threads that are
+	 * created by it (or by these threads) while the test runs. Use this if
+	 * the code under test reads the properties in a background thread. All
+	 * other threads still see the original values.
+	 *
+	 * @return this rule.
+	 * @since 1.10.0
+	 */
+	public ProvideSystemProperty isolatedPerThreadIncludingSpawnedThreads() {
+		isolatedPerThread = true;
+		includeSpawnedThreads = true;
+		return this;
+	}
+
+	@Override
+	protected void before() throws Throwable {
+		TrackingProperties trackingProperties = TrackingProperties.install();
+		if (isolatedPerThread)
+			overlay = trackingProperties.openOverlay(includeSpawnedThreads);
+		else
+			scope = trackingProperties.openScope(properties.keySet());
+		trackingProperties.setAll(properties);
 	}
 
 	@Override
 	protected void after() {
 		restoreSystemProperty.restore();
+		if (isolatedPerThread)
+			overlay.close();
+		else
+			scope.restore();
 	}
 }
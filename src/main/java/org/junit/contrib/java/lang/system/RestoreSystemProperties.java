@@ -3,8 +3,9 @@ package org.junit.contrib.java.lang.system;
 import static java.lang.System.getProperties;
 import static java.lang.System.setProperties;
 
-import java.util.Properties;
-
+import org.junit.contrib.java.lang.system.internal.TrackingProperties;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties.Overlay;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties.Scope;
 import org.junit.rules.ExternalResource;
 
 /**
@@ -26,9 +27,19 @@ import org.junit.rules.ExternalResource;
  * </pre>
  * After running the test, the system property {@code YourProperty} has
  * the value {@code YourValue} again.
+ * <p>The rule does not copy the properties. It records the original values
+ * of the properties that are changed by the test and restores only these
+ * properties. Therefore it is cheap to nest it, e.g. as {@code @ClassRule}
+ * and {@code @Rule}.
+ * <p>Tests can run in parallel if their changes are isolated in the test's
+ * thread ({@link #isolatedPerThread()}).
  */
 public class RestoreSystemProperties extends ExternalResource {
-	private Properties originalProperties;
+	private TrackingProperties properties;
+	private Scope scope;
+	private boolean isolatedPerThread = false;
+	private boolean includeSpawnedThreads = false;
+	private Overlay overlay;
 
 	/**
 	 * Creates a {@code RestoreSystemProperties} rule that restores all
@@ -64,14 +75,52 @@ public class RestoreSystemProperties extends ExternalResource {
 	public void add(String property) {
 	}
 
+	/**
+	 * Record the test's changes of the properties in an overlay that only the
+	 * test's thread sees. The overlay is discarded after the test, so there
+	 * is nothing to restore. Changes by other threads are not recorded and
+	 * not undone.
+	 *
+	 * @return this rule.
+	 * @since 1.10.0
+	 */
+	public RestoreSystemProperties isolatedPerThread() {
+		isolatedPerThread = true;
+		includeSpawnedThreads = false;
+		return this;
+	}
+
+	/**
+	 * Record the changes of the properties in an overlay that is shared by
+	 * the test's thread and the threads that are created by it (or by these
+	 * threads) while the test runs. The overlay is discarded after the test.
+	 * All other threads neither see nor lose these changes.
+	 *
+	 * @return this rule.
+	 * @since 1.10.0
+	 */
+	public RestoreSystemProperties isolatedPerThreadIncludingSpawnedThreads() {
+		isolatedPerThread = true;
+		includeSpawnedThreads = true;
+		return this;
+	}
+
 	@Override
 	protected void before() throws Throwable {
-		originalProperties = getProperties();
-		setProperties(new Properties(originalProperties));
+		properties = TrackingProperties.install();
+		if (isolatedPerThread)
+			overlay = properties.openOverlay(includeSpawnedThreads);
+		else
+			scope = properties.openScope();
 	}
 
 	@Override
 	protected void after() {
-		setProperties(originalProperties);
+		if (getProperties() != properties)
+			setProperties(properties);
+		if (isolatedPerThread)
+			overlay.close();
+		else
+			scope.restore();
 	}
 }
@@ -3,6 +3,8 @@ package org.junit.contrib.java.lang.system;
 import static org.junit.contrib.java.lang.system.LogMode.LOG_AND_WRITE_TO_STREAM;
 import static org.junit.contrib.java.lang.system.internal.PrintStreamHandler.SYSTEM_ERR;
 
+import java.io.File;
+
 import org.junit.contrib.java.lang.system.internal.PrintStreamLog;
 
 /**
@@ -64,4 +66,20 @@ public class StandardErrorStreamLog extends PrintStreamLog {
 	public StandardErrorStreamLog(LogMode mode) {
 		super(mode, SYSTEM_ERR);
 	}
+
+	/**
+	 * Creates a rule that records writes to the standard error stream
+	 * according to the specified {@code LogMode}. If the mode is
+	 * {@link LogMode#LOG_AND_WRITE_TO_FILE} then the rule writes the text of
+	 * each test to a file {@code <test name>.err} in the specified directory.
+	 * (The other constructors use the directory {@code target/system-rules}.)
+	 *
+	 * @param mode how the rule handles writes to the standard error stream.
+	 * @param logDirectory the directory of the log files.
+	 * @throws java.lang.NullPointerException if {@code mode} is null.
+	 * @since 1.10.0
+	 */
+	public StandardErrorStreamLog(LogMode mode, File logDirectory) {
+		super(mode, SYSTEM_ERR, logDirectory);
+	}
 }
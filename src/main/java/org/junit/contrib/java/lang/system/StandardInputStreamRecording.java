@@ -0,0 +1,66 @@
+package org.junit.contrib.java.lang.system;
+
+import static java.lang.System.in;
+import static java.lang.System.setIn;
+
+import java.io.File;
+import java.io.InputStream;
+
+import org.junit.contrib.java.lang.system.internal.RecordingInputStream;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * The {@code StandardInputStreamRecording} records the bytes that are read
+ * from {@code System.in} during a test together with the time between the
+ * reads. The recording is written to a compact binary file, which can be
+ * replayed by {@link TextFromStandardInputStream#replay(File, boolean)}.
+ * <pre>
+ *   public class RecordSessionTest {
+ *     &#064;Rule
+ *     public final StandardInputStreamRecording recording
+ *       = new StandardInputStreamRecording(new File("session.stdin"));
+ *
+ *     &#064;Test
+ *     public void recordSession() {
+ *       new InteractiveTool().run();
+ *     }
+ *   }
+ * </pre>
+ * The test reads the real {@code System.in}, e.g. the terminal, and the
+ * original {@code System.in} is restored after the test.
+ *
+ * @since 1.10.0
+ */
+public class StandardInputStreamRecording implements TestRule {
+	private final File file;
+
+	/**
+	 * Creates a rule that records {@code System.in} to the specified file.
+	 * An existing file is overwritten.
+	 *
+	 * @param file the file of the recording.
+	 */
+	public StandardInputStreamRecording(File file) {
+		this.file = file;
+	}
+
+	public Statement apply(final Statement base, Description description) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				InputStream originalIn = in;
+				RecordingInputStream recordingIn
+					= new RecordingInputStream(originalIn, file);
+				setIn(recordingIn);
+				try {
+					base.evaluate();
+				} finally {
+					setIn(originalIn);
+					recordingIn.close();
+				}
+			}
+		};
+	}
+}
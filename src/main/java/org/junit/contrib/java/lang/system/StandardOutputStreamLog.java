@@ -3,6 +3,8 @@ package org.junit.contrib.java.lang.system;
 import static org.junit.contrib.java.lang.system.LogMode.LOG_AND_WRITE_TO_STREAM;
 import static org.junit.contrib.java.lang.system.internal.PrintStreamHandler.SYSTEM_OUT;
 
+import java.io.File;
+
 import org.junit.contrib.java.lang.system.internal.PrintStreamLog;
 
 /**
@@ -43,8 +45,20 @@ import org.junit.contrib.java.lang.system.internal.PrintStreamLog;
  * <pre>
  * &#064;Rule
  * public final StandardOutputStreamLog log = new StandardOutputStreamLog(LOG_ONLY);</pre>
+ * <h2>JSON lines</h2>
+ * If the code under test writes a JSON text per line, then you can access
+ * the lines' fields by {@link #getJsonLines()}.
+ * <pre>
+ *   &#064;Test
+ *   public void logsUserName() {
+ *     System.out.println("{\"user\":{\"name\":\"Ada\"}}");
+ *     assertEquals("Ada", log.getJsonLines().getField(0, "user.name"));
+ *   }
+ * </pre>
  */
 public class StandardOutputStreamLog extends PrintStreamLog {
+	private JsonLines jsonLines;
+
 	/**
 	 * Creates a rule that records writes while they are still written to the
 	 * standard output stream.
@@ -63,4 +77,32 @@ public class StandardOutputStreamLog extends PrintStreamLog {
 	public StandardOutputStreamLog(LogMode mode) {
 		super(mode, SYSTEM_OUT);
 	}
+
+	/**
+	 * Creates a rule that records writes to the standard output stream
+	 * according to the specified {@code LogMode}. If the mode is
+	 * {@link LogMode#LOG_AND_WRITE_TO_FILE} then the rule writes the text of
+	 * each test to a file {@code <test name>.out} in the specified directory.
+	 * (The other constructors use the directory {@code target/system-rules}.)
+	 *
+	 * @param mode how the rule handles writes to the standard output stream.
+	 * @param logDirectory the directory of the log files.
+	 * @throws java.lang.NullPointerException if {@code mode} is null.
+	 * @since 1.10.0
+	 */
+	public StandardOutputStreamLog(LogMode mode, File logDirectory) {
+		super(mode, SYSTEM_OUT, logDirectory);
+	}
+
+	/**
+	 * Returns a view of the log, which parses each line as a JSON text.
+	 *
+	 * @return a view of the log, which parses each line as a JSON text.
+	 * @since 1.10.0
+	 */
+	public synchronized JsonLines getJsonLines() {
+		if (jsonLines == null)
+			jsonLines = new JsonLines(getLogBuffer());
+		return jsonLines;
+	}
 }
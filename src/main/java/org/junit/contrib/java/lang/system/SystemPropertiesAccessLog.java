@@ -0,0 +1,108 @@
+package org.junit.contrib.java.lang.system;
+
+import java.io.PrintStream;
+
+import org.junit.contrib.java.lang.system.internal.PropertyAccessCounter;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties.AccessListener;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties.Scope;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * The {@code SystemPropertiesAccessLog} counts how often the code under test
+ * reads and writes each system property. At the end of the test it reports
+ * the counts together with sampled call sites to {@code System.err}.
+ * <pre>
+ *   public class MyTest {
+ *     &#064;Rule
+ *     public final SystemPropertiesAccessLog accessLog
+ *       = new SystemPropertiesAccessLog();
+ *
+ *     &#064;Test
+ *     public void handleRequests() {
+ *       ...
+ *     }
+ *   }
+ * </pre>
+ * A report looks like this:
+ * <pre>
+ * System property accesses of handleRequests(MyTest):
+ * feature.enabled: 1000 reads, 0 writes
+ *     at com.example.Handler.handle(Handler.java:42) (16 samples)
+ * </pre>
+ * The first access of a property and every 64th access afterwards are
+ * sampled. You can change the interval with {@link #sampleEvery(int)}.
+ * <p>The rule counts the accesses of the installed system properties and
+ * restores the properties that have been changed by the test, like
+ * {@link RestoreSystemProperties} does.
+ *
+ * @since 1.10.0
+ */
+public class SystemPropertiesAccessLog implements TestRule {
+	private final PrintStream report = System.err;
+	private int sampleInterval = 64;
+	private PropertyAccessCounter counter
+		= new PropertyAccessCounter(sampleInterval);
+
+	/**
+	 * Sample the call sites of every {@code interval}th access of a
+	 * property.
+	 *
+	 * @param interval the interval between two samples.
+	 * @return this rule.
+	 */
+	public SystemPropertiesAccessLog sampleEvery(int interval) {
+		if (interval < 1)
+			throw new IllegalArgumentException(
+				"The interval must be at least 1.");
+		sampleInterval = interval;
+		return this;
+	}
+
+	public Statement apply(final Statement base, final Description description) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				TrackingProperties properties = TrackingProperties.install();
+				Scope scope = properties.openScope();
+				counter = new PropertyAccessCounter(sampleInterval);
+				AccessListener previousListener
+					= properties.setAccessListener(counter);
+				try {
+					base.evaluate();
+				} finally {
+					properties.setAccessListener(previousListener);
+					scope.restore();
+					report.print("System property accesses of "
+						+ ((description == null) ? "unknown test"
+						: description.getDisplayName()) + ":\n"
+						+ counter.createReport());
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of reads of a property by the current or the last
+	 * test. It is 0 before the first test.
+	 *
+	 * @param name the name of the property.
+	 * @return the number of reads.
+	 */
+	public long getNumberOfReads(String name) {
+		return counter.getNumberOfReads(name);
+	}
+
+	/**
+	 * Returns the number of writes of a property by the current or the last
+	 * test. It is 0 before the first test.
+	 *
+	 * @param name the name of the property.
+	 * @return the number of writes.
+	 */
+	public long getNumberOfWrites(String name) {
+		return counter.getNumberOfWrites(name);
+	}
+}
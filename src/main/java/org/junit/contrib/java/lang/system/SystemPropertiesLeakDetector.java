@@ -0,0 +1,116 @@
+package org.junit.contrib.java.lang.system;
+
+import static java.lang.System.getProperties;
+import static java.lang.System.setProperties;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.contrib.java.lang.system.internal.TrackingProperties;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties.Scope;
+import org.junit.runner.Description;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * The {@code SystemPropertiesLeakDetector} reports tests that change system
+ * properties without restoring them. Such tests cause failures of other
+ * tests that depend on the order of the tests.
+ * <p>Register the detector as a listener of your test runs, e.g. with
+ * Maven's Surefire plugin:
+ * <pre>
+ * &lt;configuration&gt;
+ *   &lt;properties&gt;
+ *     &lt;property&gt;
+ *       &lt;name&gt;listener&lt;/name&gt;
+ *       &lt;value&gt;org.junit.contrib.java.lang.system.SystemPropertiesLeakDetector&lt;/value&gt;
+ *     &lt;/property&gt;
+ *   &lt;/properties&gt;
+ * &lt;/configuration&gt;
+ * </pre>
+ * It reports each leaking test with the names of the properties that it
+ * changed to {@code System.err}:
+ * <pre>
+ * Test shouldParse(ParserTest) leaked the system properties [parser.strict].
+ * </pre>
+ * <p>The detector does not copy the properties. It compares fingerprints
+ * of the properties, which are maintained with every change. Only if the
+ * fingerprints differ it determines the changed properties.
+ * <p>The detector is able to restore leaked properties, too. Create it with
+ * {@link #SystemPropertiesLeakDetector(boolean)}. (Surefire needs a
+ * constructor without arguments. Create a subclass for Surefire.)
+ * <p>The detector expects that tests are executed one after another.
+ *
+ * @since 1.10.0
+ */
+public class SystemPropertiesLeakDetector extends RunListener {
+	private final boolean restoreLeakedProperties;
+	private final PrintStream report = System.err;
+	private final List<String> leaks = new ArrayList<String>();
+	private TrackingProperties properties;
+	private Scope scope;
+	private long fingerprint;
+
+	/**
+	 * Creates a detector that reports leaking tests.
+	 */
+	public SystemPropertiesLeakDetector() {
+		this(false);
+	}
+
+	/**
+	 * Creates a detector that reports leaking tests and optionally restores
+	 * the leaked properties.
+	 *
+	 * @param restoreLeakedProperties whether leaked properties are restored
+	 *                                after the test.
+	 */
+	public SystemPropertiesLeakDetector(boolean restoreLeakedProperties) {
+		this.restoreLeakedProperties = restoreLeakedProperties;
+	}
+
+	@Override
+	public synchronized void testStarted(Description description) {
+		properties = TrackingProperties.install();
+		scope = properties.openScope();
+		fingerprint = properties.getFingerprint();
+	}
+
+	@Override
+	public synchronized void testFinished(Description description) {
+		if (scope == null)
+			return;
+		if (getProperties() != properties)
+			reportLeak(description, "replaced System.getProperties()");
+		else if (properties.getFingerprint() != fingerprint) {
+			Set<Object> changedProperties = scope.getChangedProperties();
+			if (!changedProperties.isEmpty())
+				reportLeak(description,
+					"leaked the system properties " + changedProperties);
+		}
+		if (restoreLeakedProperties) {
+			setProperties(properties);
+			scope.restore();
+		} else
+			scope.commit();
+		scope = null;
+	}
+
+	private void reportLeak(Description description, String leak) {
+		String message = "Test " + description.getDisplayName() + " " + leak
+			+ ".";
+		leaks.add(message);
+		report.println(message);
+	}
+
+	/**
+	 * Returns the reports of all leaking tests.
+	 *
+	 * @return the reports of all leaking tests.
+	 */
+	public synchronized List<String> getLeaks() {
+		return Collections.unmodifiableList(new ArrayList<String>(leaks));
+	}
+}
@@ -0,0 +1,251 @@
+package org.junit.contrib.java.lang.system;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.junit.contrib.java.lang.system.internal.TrackingProperties;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties.Overlay;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties.Scope;
+import org.junit.internal.AssumptionViolatedException;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.MultipleFailureException;
+import org.junit.runners.model.Statement;
+
+/**
+ * The {@code SystemPropertyMatrix} rule executes each test once for every
+ * combination of values of a set of system properties. All combinations are
+ * executed in the same JVM.
+ * <pre>
+ *   public class FeatureFlagTest {
+ *     &#064;Rule
+ *     public final SystemPropertyMatrix matrix = new SystemPropertyMatrix()
+ *       .dimension("feature.cache", "on", "off")
+ *       .dimension("feature.mode", "fast", "safe", null);
+ *
+ *     &#064;Test
+ *     public void worksWithAllFlags() {
+ *       ...
+ *     }
+ *   }
+ * </pre>
+ * The test is executed six times. The value {@code null} means that the
+ * property is not set. The test fails if it fails for at least one
+ * combination. Each failure reports its combination. A combination whose
+ * assumptions fail is skipped and the test is skipped if all combinations
+ * are skipped. After the test the original values of the properties are
+ * restored (like {@link ProvideSystemProperty} does).
+ * <p>The combinations are executed in an order where two successive
+ * combinations differ in a single property. Therefore only a single
+ * property is changed between two executions. Changes of the system
+ * properties by an execution are undone before the next execution.
+ * <h2>Parallel execution</h2>
+ * <p>The combinations can be executed in parallel. Each combination is
+ * provided to its thread only (like
+ * {@link ProvideSystemProperty#isolatedPerThreadIncludingSpawnedThreads()}
+ * does). All executions share the same test object. Therefore the test must
+ * not change the fields of the test object.
+ * <pre>
+ *   &#064;Rule
+ *   public final SystemPropertyMatrix matrix = new SystemPropertyMatrix()
+ *     .dimension("feature.cache", "on", "off")
+ *     .inParallel(4);
+ * </pre>
+ *
+ * @since 1.10.0
+ */
+public class SystemPropertyMatrix implements TestRule {
+	private final Map<String, String[]> dimensions
+		= new LinkedHashMap<String, String[]>();
+	private int numberOfThreads = 1;
+
+	/**
+	 * Adds a property and the values that it takes.
+	 *
+	 * @param name the name of the property.
+	 * @param values the values of the property. {@code null} means that the
+	 *               property is not set.
+	 * @return this rule.
+	 */
+	public SystemPropertyMatrix dimension(String name, String... values) {
+		if (values.length == 0)
+			throw new IllegalArgumentException("The property " + name
+				+ " needs at least one value.");
+		dimensions.put(name, values);
+		return this;
+	}
+
+	/**
+	 * Executes the combinations in parallel.
+	 *
+	 * @param numberOfThreads the number of combinations that are executed
+	 *                        at the same time.
+	 * @return this rule.
+	 */
+	public SystemPropertyMatrix inParallel(int numberOfThreads) {
+		if (numberOfThreads < 1)
+			throw new IllegalArgumentException(
+				"The number of threads must be at least 1.");
+		this.numberOfThreads = numberOfThreads;
+		return this;
+	}
+
+	public Statement apply(final Statement base, Description description) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				if (numberOfThreads == 1)
+					evaluateSerially(base);
+				else
+					evaluateInParallel(base);
+			}
+		};
+	}
+
+	private void evaluateSerially(Statement base) throws Throwable {
+		List<Throwable> failures = new ArrayList<Throwable>();
+		List<Map<String, String>> combinations = createCombinations();
+		TrackingProperties properties = TrackingProperties.install();
+		Scope scope = properties.openScope();
+		try {
+			Map<String, String> previousCombination = null;
+			for (Map<String, String> combination : combinations) {
+				properties.setAll(diff(previousCombination, combination));
+				Scope scopeOfExecution = properties.openScope();
+				try {
+					base.evaluate();
+				} catch (Throwable e) {
+					failures.add(failureOfCombination(combination, e));
+				} finally {
+					scopeOfExecution.restore();
+				}
+				previousCombination = combination;
+			}
+		} finally {
+			scope.restore();
+		}
+		reportFailures(failures, combinations.size());
+	}
+
+	private Map<String, String> diff(Map<String, String> previousCombination,
+			Map<String, String> combination) {
+		if (previousCombination == null)
+			return combination;
+		Map<String, String> diff = new LinkedHashMap<String, String>();
+		for (Map.Entry<String, String> property : combination.entrySet()) {
+			String previousValue = previousCombination.get(property.getKey());
+			String value = property.getValue();
+			if ((value == null) ? previousValue != null
+				: !value.equals(previousValue))
+				diff.put(property.getKey(), value);
+		}
+		return diff;
+	}
+
+	private void evaluateInParallel(final Statement base) throws Throwable {
+		final TrackingProperties properties = TrackingProperties.install();
+		ExecutorService executor = newFixedThreadPool(numberOfThreads);
+		try {
+			List<Map<String, String>> combinations = createCombinations();
+			List<Future<Throwable>> executions
+				= new ArrayList<Future<Throwable>>();
+			for (final Map<String, String> combination : combinations)
+				executions.add(executor.submit(new Callable<Throwable>() {
+					public Throwable call() {
+						return evaluateInThread(base, properties, combination);
+					}
+				}));
+			List<Throwable> failures = new ArrayList<Throwable>();
+			for (Future<Throwable> execution : executions) {
+				Throwable failure = execution.get();
+				if (failure != null)
+					failures.add(failure);
+			}
+			reportFailures(failures, combinations.size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Throwable evaluateInThread(Statement base,
+			TrackingProperties properties, Map<String, String> combination) {
+		Overlay overlay = properties.openOverlay(true);
+		try {
+			properties.setAll(combination);
+			base.evaluate();
+			return null;
+		} catch (Throwable e) {
+			return failureOfCombination(combination, e);
+		} finally {
+			overlay.close();
+		}
+	}
+
+	private Throwable failureOfCombination(Map<String, String> combination,
+			Throwable failure) {
+		if (failure instanceof AssumptionViolatedException)
+			return failure;
+		AssertionError error = new AssertionError("The test failed with the"
+			+ " system properties " + combination + ": " + failure);
+		error.initCause(failure);
+		return error;
+	}
+
+	/**
+	 * Throws the failures of the combinations. Skipped combinations are
+	 * ignored unless all combinations have been skipped.
+	 */
+	private void reportFailures(List<Throwable> failures,
+			int numberOfCombinations) throws Throwable {
+		List<Throwable> errors = new ArrayList<Throwable>();
+		for (Throwable failure : failures)
+			if (!(failure instanceof AssumptionViolatedException))
+				errors.add(failure);
+		if (errors.isEmpty() && failures.size() == numberOfCombinations)
+			throw failures.get(0);
+		MultipleFailureException.assertEmpty(errors);
+	}
+
+	/**
+	 * Creates all combinations in an order where successive combinations
+	 * differ in a single property. The first property changes most often
+	 * and the direction of each property reverses whenever a slower property
+	 * changes.
+	 */
+	private List<Map<String, String>> createCombinations() {
+		List<String> names = new ArrayList<String>(dimensions.keySet());
+		int[] indices = new int[names.size()];
+		int[] directions = new int[names.size()];
+		int numberOfCombinations = 1;
+		for (int i = 0; i < names.size(); ++i) {
+			directions[i] = 1;
+			numberOfCombinations *= dimensions.get(names.get(i)).length;
+		}
+		List<Map<String, String>> combinations
+			= new ArrayList<Map<String, String>>(numberOfCombinations);
+		for (int n = 0; n < numberOfCombinations; ++n) {
+			Map<String, String> combination = new LinkedHashMap<String, String>();
+			for (int i = 0; i < names.size(); ++i)
+				combination.put(names.get(i),
+					dimensions.get(names.get(i))[indices[i]]);
+			combinations.add(Collections.unmodifiableMap(combination));
+			for (int i = 0; i < names.size(); ++i) {
+				int next = indices[i] + directions[i];
+				if (next >= 0 && next < dimensions.get(names.get(i)).length) {
+					indices[i] = next;
+					break;
+				} else
+					directions[i] = -directions[i];
+			}
+		}
+		return combinations;
+	}
+}
@@ -2,15 +2,36 @@ package org.junit.contrib.java.lang.system;
 
 import static java.lang.System.in;
 import static java.lang.System.setIn;
-import static java.util.Arrays.asList;
+import static org.junit.Assert.fail;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+import org.junit.contrib.java.lang.system.internal.BufferInput;
+import org.junit.contrib.java.lang.system.internal.ForbiddenInputStream;
+import org.junit.contrib.java.lang.system.internal.Input;
+import org.junit.contrib.java.lang.system.internal.LinesInput;
+import org.junit.contrib.java.lang.system.internal.MappedFileInput;
+import org.junit.contrib.java.lang.system.internal.PerThreadInputStream;
+import org.junit.contrib.java.lang.system.internal.PrintStreamLog;
+import org.junit.contrib.java.lang.system.internal.PromptedInput;
+import org.junit.contrib.java.lang.system.internal.ReplayInput;
+import org.junit.contrib.java.lang.system.internal.StandardInputWatchdog;
+import org.junit.contrib.java.lang.system.internal.StreamInput;
+import org.junit.contrib.java.lang.system.internal.SystemInMock;
+import org.junit.contrib.java.lang.system.internal.Throttle;
 import org.junit.rules.ExternalResource;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
 
 /**
  * The {@code TextFromStandardInputStream} rule replaces {@code System.in} with
@@ -45,15 +66,141 @@ import org.junit.rules.ExternalResource;
  *     assertEquals("bar", scanner.nextLine());
  *   }
  * </pre>
+ *
+ * <h3>Files</h3>
+ * Large inputs can be provided by files. {@code System.in} reads them
+ * directly from the file system without loading them into memory.
+ * <pre>
+ *   systemInMock.provideFile(new File("/home/myself/input.txt"));
+ *   systemInMock.provideResource("input.txt");
+ * </pre>
+ *
+ * <h3>Interactive programs</h3>
+ * {@code System.in} can answer the prompts of an interactive program. Each
+ * answer is provided after its prompt has been written to the standard
+ * output stream (or the standard error stream). A read blocks until the
+ * prompt is written.
+ * <pre>
+ *   &#064;Rule
+ *   public final StandardOutputStreamLog log = new StandardOutputStreamLog();
+ *
+ *   &#064;Test
+ *   public void answersPrompts() {
+ *     systemInMock.answerPrompts(log)
+ *       .answer("Continue?", "y\n")
+ *       .answer("Name:", "Ada\n");
+ *     ...
+ *   }
+ * </pre>
+ *
+ * <h3>Binary input</h3>
+ * {@code System.in} can provide arbitrary bytes, too.
+ * <pre>
+ *   systemInMock.provideBytes(new byte[] {1, 2, 3});
+ *   systemInMock.provideBuffers(ByteBuffer.allocateDirect(1024));
+ * </pre>
+ * The replaced {@code System.in} is a {@link java.nio.channels.ReadableByteChannel}.
+ * Code that reads {@code System.in} through a channel should use it
+ * directly instead of wrapping it with {@code Channels.newChannel(...)}.
+ * Then the bytes are transferred directly from the provided buffers.
+ * <pre>
+ *   ReadableByteChannel channel = (System.in instanceof ReadableByteChannel)
+ *     ? (ReadableByteChannel) System.in : Channels.newChannel(System.in);
+ * </pre>
+ *
+ * <h3>Forbidden input</h3>
+ * Tests of code that must not read {@code System.in} can forbid it. Every
+ * read fails immediately with the reader's stack trace.
+ * <pre>
+ *   &#064;Rule
+ *   public final TextFromStandardInputStream systemInMock
+ *     = forbiddenStandardInputStream().failWhenBlockedForMillis(10000);
+ * </pre>
+ * {@link #failWhenBlockedForMillis(long)} adds a watchdog for code that
+ * still reads the original {@code System.in}, because it grabbed it before
+ * the rule replaced it. Such a test would hang forever. With the watchdog it
+ * fails with the stack traces of the blocked threads.
+ *
+ * <h3>Recorded sessions</h3>
+ * A session that has been recorded by the
+ * {@link StandardInputStreamRecording} can be replayed either with its
+ * original timing or as fast as possible.
+ * <pre>
+ *   systemInMock.replay(new File("session.stdin"), true);
+ * </pre>
+ *
+ * <h3>Slow input</h3>
+ * By default all input is available immediately. You can simulate a slow
+ * pipe, which delivers the input in chunks. A read returns at most the rest
+ * of the current chunk and blocks until the next chunk arrives.
+ * <pre>
+ *   systemInMock.deliverAtRate(512, 4096); //chunks of 512 bytes, 4 KiB/s
+ *   systemInMock.deliverInChunks(10, 100, 0, 500); //10 bytes each after
+ *                                                  //100 ms, 0 ms, 500 ms, ...
+ * </pre>
+ *
+ * <h3>Parallel tests</h3>
+ * The rule replaces {@code System.in} for the whole JVM. Therefore tests
+ * that use it cannot run in parallel. Unless you let the rule provide the
+ * text to the test's thread only.
+ * <pre>
+ *   &#064;Rule
+ *   public final TextFromStandardInputStream systemInMock
+ *     = emptyStandardInputStream().isolatedPerThread();
+ * </pre>
+ * In this case {@code System.in} is replaced once by a stream that lets each
+ * thread read from its own text. It is not restored afterwards. Threads
+ * without an own text read from the original {@code System.in}. Use
+ * {@link #isolatedPerThreadIncludingSpawnedThreads()} if threads that are
+ * created by the test should read the test's text, too.
+ *
+ * <h3>Consumption of the input</h3>
+ * The rule counts the bytes that have been read and the read calls. It
+ * can check that the code under test read the whole input.
+ * <pre>
+ *   &#064;Test
+ *   public void readsWholeInput() {
+ *     systemInMock.provideText("foo\nbar\n");
+ *     ...
+ *     systemInMock.assertAllInputConsumed();
+ *   }
+ * </pre>
+ * A small {@link #getAverageReadSize() average read size} is a hint that the
+ * code reads {@code System.in} without a buffer.
+ *
+ * <h3>Encoding</h3>
+ * {@code System.in} provides the texts encoded with the platform's default
+ * charset, which is used by {@code Scanner} and {@code InputStreamReader}
+ * unless another charset is specified.
  */
 public class TextFromStandardInputStream extends ExternalResource {
+	private static final long DEFAULT_PROMPT_TIMEOUT_MILLIS = 5000;
 	private final SystemInMock systemInMock = new SystemInMock();
 	private InputStream originalIn;
+	private PerThreadInputStream perThreadInputStream;
+	private boolean isolatedPerThread = false;
+	private boolean includeSpawnedThreads = false;
+	private ForbiddenInputStream forbiddenInputStream;
+	private long watchdogTimeoutMillis = 0;
 
 	public static TextFromStandardInputStream emptyStandardInputStream() {
 		return new TextFromStandardInputStream("");
 	}
 
+	/**
+	 * Creates a rule that forbids reading {@code System.in}. Every read fails
+	 * with an {@code AssertionError}, whose stack trace shows the reader. The
+	 * test fails even if the code under test catches the error.
+	 *
+	 * @return the new rule.
+	 * @since 1.10.0
+	 */
+	public static TextFromStandardInputStream forbiddenStandardInputStream() {
+		TextFromStandardInputStream rule = emptyStandardInputStream();
+		rule.forbiddenInputStream = new ForbiddenInputStream();
+		return rule;
+	}
+
 	/**
 	 * Create a new {@code TextFromStandardInputStream}, which provides the
 	 * specified text.
@@ -74,7 +221,172 @@ public class TextFromStandardInputStream extends ExternalResource {
 	 * @param texts a list of texts.
 	 */
 	public void provideText(String... texts) {
-		systemInMock.provideText(asList(texts));
+		Charset charset = Charset.defaultCharset();
+		List<Input> inputs = new ArrayList<Input>(texts.length);
+		for (String text : texts)
+			inputs.add(new BufferInput(ByteBuffer.wrap(text.getBytes(charset))));
+		provide(inputs);
+	}
+
+	/**
+	 * Set the bytes that are returned by {@code System.in}. You can provide
+	 * multiple arrays. In that case {@code System.in.read()} returns -1 once
+	 * when the end of a single array is reached and continues with the next
+	 * array afterwards. The arrays are not copied.
+	 *
+	 * @param texts a list of byte arrays.
+	 * @since 1.10.0
+	 */
+	public void provideBytes(byte[]... texts) {
+		List<Input> inputs = new ArrayList<Input>(texts.length);
+		for (byte[] text : texts)
+			inputs.add(new BufferInput(ByteBuffer.wrap(text)));
+		provide(inputs);
+	}
+
+	/**
+	 * Set the buffers whose remaining bytes are returned by {@code System.in}.
+	 * You can provide multiple buffers. In that case {@code System.in.read()}
+	 * returns -1 once when the end of a single buffer is reached and
+	 * continues with the next buffer afterwards. The bytes are not copied and
+	 * the positions of the buffers are not changed.
+	 *
+	 * @param texts a list of buffers.
+	 * @since 1.10.0
+	 */
+	public void provideBuffers(ByteBuffer... texts) {
+		List<Input> inputs = new ArrayList<Input>(texts.length);
+		for (ByteBuffer text : texts)
+			inputs.add(new BufferInput(text.slice()));
+		provide(inputs);
+	}
+
+	/**
+	 * Replay a session that has been recorded by the
+	 * {@link StandardInputStreamRecording}. The recording is streamed from
+	 * the file while {@code System.in} is read.
+	 *
+	 * @param file the recorded session.
+	 * @param originalTiming {@code true} if the bytes are delivered at the
+	 *                       time of the recording and {@code false} if they
+	 *                       are delivered as fast as possible.
+	 * @since 1.10.0
+	 */
+	public void replay(File file, boolean originalTiming) {
+		try {
+			provide(Collections.<Input>singletonList(
+				new ReplayInput(file, originalTiming)));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Cannot replay the file "
+				+ file + ".", e);
+		}
+	}
+
+	/**
+	 * Set the file whose content is returned by {@code System.in}. The file is
+	 * mapped into memory and not loaded to the heap. Its bytes are returned
+	 * unchanged.
+	 *
+	 * @param file the file.
+	 * @throws IllegalArgumentException if the file does not exist.
+	 * @since 1.10.0
+	 */
+	public void provideFile(File file) {
+		if (!file.isFile())
+			throw new IllegalArgumentException("The file " + file
+				+ " does not exist.");
+		provide(Collections.<Input>singletonList(new MappedFileInput(file)));
+	}
+
+	/**
+	 * Set the resource whose content is returned by {@code System.in}. The
+	 * name is resolved like {@link Class#getResource(String)} of
+	 * {@code TextFromStandardInputStream} does it. A resource from the file
+	 * system is mapped into memory, other resources are streamed.
+	 *
+	 * @param name the name of the resource.
+	 * @throws IllegalArgumentException if the resource does not exist.
+	 * @since 1.10.0
+	 */
+	public void provideResource(String name) {
+		URL resource = TextFromStandardInputStream.class.getResource(name);
+		if (resource == null)
+			throw new IllegalArgumentException("The resource " + name
+				+ " does not exist.");
+		else if ("file".equals(resource.getProtocol()))
+			provideFile(toFile(resource));
+		else
+			provide(Collections.<Input>singletonList(
+				new StreamInput(openStream(resource))));
+	}
+
+	private File toFile(URL resource) {
+		try {
+			return new File(resource.toURI());
+		} catch (URISyntaxException e) {
+			return new File(resource.getPath());
+		}
+	}
+
+	private InputStream openStream(URL resource) {
+		try {
+			return resource.openStream();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Let {@code System.in} answer prompts that are written to the
+	 * specified log's stream. Add the answers to the returned
+	 * {@code PromptAnswers}. {@code System.in} reaches its end after the last
+	 * answer.
+	 *
+	 * @param log the {@link StandardOutputStreamLog} or
+	 *            {@link StandardErrorStreamLog} that records the prompts.
+	 * @return the answers.
+	 * @since 1.10.0
+	 */
+	public PromptAnswers answerPrompts(PrintStreamLog log) {
+		PromptedInput input = new PromptedInput(log, Charset.defaultCharset(),
+			DEFAULT_PROMPT_TIMEOUT_MILLIS);
+		provide(Collections.<Input>singletonList(input));
+		return new PromptAnswers(input);
+	}
+
+	/**
+	 * Let {@code System.in} deliver its input in chunks with a fixed rate. A
+	 * read returns at most the rest of the current chunk and blocks until the
+	 * next chunk arrives.
+	 *
+	 * @param chunkSize      the number of bytes of a chunk.
+	 * @param bytesPerSecond the rate.
+	 * @since 1.10.0
+	 */
+	public void deliverAtRate(int chunkSize, long bytesPerSecond) {
+		systemInMock.setThrottle(Throttle.withRate(chunkSize, bytesPerSecond));
+	}
+
+	/**
+	 * Let {@code System.in} deliver its input in chunks, each of them after a
+	 * delay. The i-th delay is used for the i-th chunk and the last delay for
+	 * all remaining chunks. A read returns at most the rest of the current
+	 * chunk and blocks until the next chunk arrives.
+	 *
+	 * @param chunkSize    the number of bytes of a chunk.
+	 * @param delaysMillis the delays in milliseconds.
+	 * @since 1.10.0
+	 */
+	public void deliverInChunks(int chunkSize, long... delaysMillis) {
+		systemInMock.setThrottle(Throttle.withDelays(chunkSize, delaysMillis));
+	}
+
+	private void provide(List<Input> inputs) {
+		try {
+			systemInMock.provide(inputs);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 	}
 	
 	/**
@@ -94,49 +406,193 @@ public class TextFromStandardInputStream extends ExternalResource {
 		
 		provideText(texts);
 	}
+
+	/**
+	 * Set the lines that are returned by {@code System.in}, each followed by
+	 * System.getProperty("line.separator"). Unlike
+	 * {@link #provideLines(String...)} the lines are a single text and they
+	 * are taken from the iterator when {@code System.in} is read. Therefore
+	 * you can provide an arbitrary number of generated lines without keeping
+	 * them in memory.
+	 * <pre>
+	 *   systemInMock.provideLines(new Iterator&lt;String&gt;() {
+	 *     private int i = 0;
+	 *
+	 *     public boolean hasNext() {
+	 *       return i &lt; 50000000;
+	 *     }
+	 *
+	 *     public String next() {
+	 *       return "line " + i++;
+	 *     }
+	 *
+	 *     public void remove() {
+	 *       throw new UnsupportedOperationException();
+	 *     }
+	 *   });
+	 * </pre>
+	 *
+	 * @param lines the lines.
+	 * @since 1.10.0
+	 */
+	public void provideLines(Iterator<? extends CharSequence> lines) {
+		provide(Collections.<Input>singletonList(new LinesInput(lines,
+			System.getProperty("line.separator"), Charset.defaultCharset())));
+	}
 	
-	@Override
-	protected void before() throws Throwable {
-		originalIn = in;
-		setIn(systemInMock);
+	/**
+	 * Returns the number of bytes that have been read (or skipped) from
+	 * {@code System.in}.
+	 *
+	 * @return the number of bytes that have been read.
+	 * @since 1.10.0
+	 */
+	public long getConsumedBytes() {
+		return systemInMock.getConsumedBytes();
 	}
 
-	@Override
-	protected void after() {
-		setIn(originalIn);
+	/**
+	 * Returns the number of bytes that have not been read from
+	 * {@code System.in} yet.
+	 *
+	 * @return the number of bytes that have not been read or -1 if it is not
+	 * known. (The number of remaining bytes of lines that are provided by an
+	 * iterator is only known after the last line has been taken.)
+	 * @since 1.10.0
+	 */
+	public long getRemainingBytes() {
+		return systemInMock.getRemainingBytes();
+	}
+
+	/**
+	 * Returns the number of calls of {@code System.in.read(...)}.
+	 *
+	 * @return the number of read calls.
+	 * @since 1.10.0
+	 */
+	public long getNumberOfReadCalls() {
+		return systemInMock.getNumberOfReadCalls();
 	}
 
-	private static class SystemInMock extends InputStream {
-		private Iterator<String> texts;
-		private StringReader currentReader;
+	/**
+	 * Returns the average number of bytes that have been returned by a call
+	 * of {@code System.in.read(...)}.
+	 *
+	 * @return the average number of bytes per read call or 0 if
+	 * {@code System.in} has not been read.
+	 * @since 1.10.0
+	 */
+	public double getAverageReadSize() {
+		long numberOfReadCalls = getNumberOfReadCalls();
+		return (numberOfReadCalls == 0) ? 0
+			: (double) getConsumedBytes() / numberOfReadCalls;
+	}
 
-		public void provideText(List<String> texts) {
-			this.texts = texts.iterator();
-			optionallyCreateReaderForNextText();
-		}
+	/**
+	 * Fails if the code under test did not read the whole input.
+	 *
+	 * @throws AssertionError if there are bytes that have not been read.
+	 * @since 1.10.0
+	 */
+	public void assertAllInputConsumed() {
+		long remainingBytes = getRemainingBytes();
+		if (remainingBytes != 0)
+			fail("System.in has not been read completely. "
+				+ getConsumedBytes() + " bytes have been read and "
+				+ ((remainingBytes == -1) ? "an unknown number of" : remainingBytes)
+				+ " bytes are remaining.");
+	}
 
-		@Override
-		public int read() throws IOException {
-			if (currentReader == null)
-				return -1;
-			else
-				return readFromExistingReader();
-		}
+	/**
+	 * Provide the text to the test's thread only. {@code System.in} is
+	 * replaced by a stream that routes each read to the text of the reading
+	 * thread. Other threads keep reading from the original
+	 * {@code System.in}.
+	 *
+	 * @return this rule.
+	 * @since 1.10.0
+	 */
+	public TextFromStandardInputStream isolatedPerThread() {
+		isolatedPerThread = true;
+		includeSpawnedThreads = false;
+		return this;
+	}
 
-		private int readFromExistingReader() throws IOException {
-			int character = currentReader.read();
-			if (character == -1)
-				optionallyCreateReaderForNextText();
-			return character;
-		}
+	/**
+	 * Provide the text to the test's thread and to the threads that are
+	 * created by it (or by these threads) while the test runs. These threads
+	 * read from the same text, i.e. a byte that is read by one of them is not
+	 * read by the others.
+	 *
+	 * @return this rule.
+	 * @since 1.10.0
+	 */
+	public TextFromStandardInputStream isolatedPerThreadIncludingSpawnedThreads() {
+		isolatedPerThread = true;
+		includeSpawnedThreads = true;
+		return this;
+	}
+
+	/**
+	 * Fail the test if a thread of the test is blocked while reading the
+	 * original {@code System.in} for longer than the specified time. This
+	 * happens if the code under test has grabbed {@code System.in} before the
+	 * rule replaced it. The failure has the stack traces of the blocked
+	 * threads. Threads that already existed before the test and threads that
+	 * read other streams are ignored.
+	 * <p>The test is executed by a separate thread. If the text is provided
+	 * {@link #isolatedPerThread() per thread} then it is provided to this
+	 * thread and to all threads that are created by the test.
+	 *
+	 * @param timeoutMillis the time in milliseconds that a thread may be
+	 *                      blocked.
+	 * @return this rule.
+	 * @since 1.10.0
+	 */
+	public TextFromStandardInputStream failWhenBlockedForMillis(long timeoutMillis) {
+		watchdogTimeoutMillis = timeoutMillis;
+		return this;
+	}
+
+	@Override
+	public Statement apply(Statement base, Description description) {
+		if (watchdogTimeoutMillis > 0)
+			return super.apply(
+				new StandardInputWatchdog(base, watchdogTimeoutMillis,
+					getOriginalIn()),
+				description);
+		else
+			return super.apply(base, description);
+	}
+
+	private InputStream getOriginalIn() {
+		return (in instanceof PerThreadInputStream)
+			? ((PerThreadInputStream) in).getOriginalIn() : in;
+	}
 
-		private void optionallyCreateReaderForNextText() {
-			if (texts.hasNext())
-				currentReader = new StringReader(texts.next());
-			else
-				currentReader = null;
+	@Override
+	protected void before() throws Throwable {
+		InputStream stream = (forbiddenInputStream == null)
+			? systemInMock : forbiddenInputStream;
+		if (isolatedPerThread) {
+			perThreadInputStream = PerThreadInputStream.install();
+			perThreadInputStream.route(stream,
+				includeSpawnedThreads || watchdogTimeoutMillis > 0);
+		} else {
+			originalIn = in;
+			setIn(stream);
 		}
 	}
 
-	
+	@Override
+	protected void after() {
+		if (isolatedPerThread)
+			perThreadInputStream.removeRoute();
+		else
+			setIn(originalIn);
+		provide(Collections.<Input>emptyList());
+		if (forbiddenInputStream != null
+			&& forbiddenInputStream.getFailure() != null)
+			throw forbiddenInputStream.getFailure();
+	}
 }
@@ -0,0 +1,182 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * An {@code OutputStream} that writes to a file on a background thread. The
+ * writing thread only copies the bytes to a queue. The background thread
+ * collects them in a large direct buffer and writes that buffer to the file's
+ * {@link FileChannel} whenever it is full or the queue is empty.
+ * <p>The queue holds at most {@link #MAX_QUEUED_BYTES} bytes. A writing thread
+ * that would exceed this limit waits until the background thread caught up,
+ * so that a fast writer does not keep a copy of the whole output on the heap.
+ * <p>Writes and {@link #close()} use the same lock. Therefore no bytes are
+ * queued after the end of the stream and writes fail once it is closed.
+ */
+public class AsyncFileOutputStream extends OutputStream {
+	private static final int BUFFER_SIZE = 1024 * 1024;
+	private static final byte[] END_OF_STREAM = new byte[0];
+
+	/**
+	 * The maximum number of bytes that are waiting to be written. A single
+	 * larger write is accepted if the queue is empty.
+	 */
+	public static final int MAX_QUEUED_BYTES = 4 * 1024 * 1024;
+
+	private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<byte[]>();
+	private final Object queueLock = new Object();
+	private long queuedBytes = 0;
+	private boolean closed = false;
+	private final FileChannel channel;
+	private final Thread writer;
+	private volatile IOException failure;
+
+	public AsyncFileOutputStream(File file) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create directory " + directory + ".");
+		channel = new FileOutputStream(file).getChannel();
+		writer = new Thread(new Writer(), "Writer for " + file);
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] {(byte) b}, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		byte[] copy = new byte[len];
+		System.arraycopy(b, off, copy, 0, len);
+		synchronized (queueLock) {
+			awaitSpaceInQueue(len);
+			queuedBytes += len;
+			queue.add(copy);
+		}
+	}
+
+	private void awaitSpaceInQueue(int len) throws IOException {
+		try {
+			while (!closed && queuedBytes > 0
+					&& queuedBytes + len > MAX_QUEUED_BYTES)
+				queueLock.wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+				"Interrupted while waiting for the file to be written.");
+		}
+		if (closed)
+			throw new IOException("Stream closed");
+	}
+
+	private void removedFromQueue(byte[] bytes) {
+		synchronized (queueLock) {
+			queuedBytes -= bytes.length;
+			queueLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Waits until all bytes have been written to the file and closes it.
+	 *
+	 * @throws IOException if the bytes could not be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (queueLock) {
+			if (!closed) {
+				closed = true;
+				queue.add(END_OF_STREAM);
+				queueLock.notifyAll();
+			}
+		}
+		waitForWriter();
+		if (failure != null)
+			throw failure;
+	}
+
+	private void waitForWriter() throws IOException {
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the file to be written.");
+		}
+	}
+
+	private class Writer implements Runnable {
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+		public void run() {
+			try {
+				for (byte[] bytes = take(); bytes != END_OF_STREAM; bytes = take()) {
+					append(bytes);
+					if (queue.isEmpty())
+						flush();
+				}
+				flush();
+			} catch (IOException e) {
+				failure = e;
+				discardRemainingBytes();
+			} finally {
+				closeChannel();
+			}
+		}
+
+		private byte[] take() {
+			while (true)
+				try {
+					byte[] bytes = queue.take();
+					removedFromQueue(bytes);
+					return bytes;
+				} catch (InterruptedException ignored) {
+					//the stream is only finished by close()
+				}
+		}
+
+		private void append(byte[] bytes) throws IOException {
+			if (bytes.length > buffer.remaining())
+				flush();
+			if (bytes.length > buffer.capacity())
+				writeFully(ByteBuffer.wrap(bytes));
+			else
+				buffer.put(bytes);
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			writeFully(buffer);
+			buffer.clear();
+		}
+
+		private void writeFully(ByteBuffer bytes) throws IOException {
+			while (bytes.hasRemaining())
+				channel.write(bytes);
+		}
+
+		private void discardRemainingBytes() {
+			while (take() != END_OF_STREAM) {
+				//discard
+			}
+		}
+
+		private void closeChannel() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				if (failure == null)
+					failure = e;
+			}
+		}
+	}
+}
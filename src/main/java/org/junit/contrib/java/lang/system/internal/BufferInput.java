@@ -0,0 +1,28 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link Input} that provides the bytes of a single buffer.
+ */
+public class BufferInput implements Input {
+	private ByteBuffer bytes;
+
+	public BufferInput(ByteBuffer bytes) {
+		this.bytes = bytes;
+	}
+
+	public ByteBuffer nextBytes() {
+		ByteBuffer next = bytes;
+		bytes = null;
+		return next;
+	}
+
+	public long getRemainingBytes() {
+		return (bytes == null) ? 0 : bytes.remaining();
+	}
+
+	public void close() {
+		bytes = null;
+	}
+}
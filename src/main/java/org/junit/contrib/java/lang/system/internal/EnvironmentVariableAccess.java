@@ -0,0 +1,95 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.Class.forName;
+import static java.lang.System.getenv;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * Changes the environment variables of the running JVM. The JVM does not
+ * provide an API for this. Therefore the maps that back
+ * {@link System#getenv()} and {@link System#getenv(String)} are changed by
+ * reflection:
+ * <ul>
+ * <li>the map that is wrapped by the unmodifiable map
+ * {@code System.getenv()} and</li>
+ * <li>the case-insensitive map {@code theCaseInsensitiveEnvironment} of
+ * {@code java.lang.ProcessEnvironment}, which exists on Windows only.</li>
+ * </ul>
+ * Java 9 and later versions need the options
+ * {@code --add-opens java.base/java.util=ALL-UNNAMED} and
+ * {@code --add-opens java.base/java.lang=ALL-UNNAMED}.
+ * <p>The maps are not thread-safe. Don't change them while other threads
+ * read the environment.
+ */
+public class EnvironmentVariableAccess {
+	/**
+	 * Sets the value of an environment variable.
+	 *
+	 * @param name the name of the variable.
+	 * @param value the new value or {@code null} if the variable is removed.
+	 */
+	public static void set(String name, String value) {
+		set(getEditableMapOfVariables(), name, value);
+		Map<String, String> caseInsensitiveMap = getCaseInsensitiveMap();
+		if (caseInsensitiveMap != null)
+			set(caseInsensitiveMap, name, value);
+	}
+
+	private static void set(Map<String, String> variables, String name,
+			String value) {
+		if (value == null)
+			variables.remove(name);
+		else
+			variables.put(name, value);
+	}
+
+	private static Map<String, String> getEditableMapOfVariables() {
+		Map<String, String> unmodifiableMap = getenv();
+		try {
+			return getFieldValue(unmodifiableMap.getClass(), unmodifiableMap,
+				"m");
+		} catch (NoSuchFieldException e) {
+			throw new IllegalStateException("System Rules expects the map"
+				+ " System.getenv() to have a field 'm' but it has not.", e);
+		}
+	}
+
+	private static Map<String, String> getCaseInsensitiveMap() {
+		try {
+			return getFieldValue(forName("java.lang.ProcessEnvironment"), null,
+				"theCaseInsensitiveEnvironment");
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("System Rules expects the"
+				+ " existence of the class java.lang.ProcessEnvironment but it"
+				+ " does not exist.", e);
+		} catch (NoSuchFieldException e) {
+			//this field is only available on Windows
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, String> getFieldValue(Class<?> type,
+			Object object, String name) throws NoSuchFieldException {
+		Field field = type.getDeclaredField(name);
+		try {
+			field.setAccessible(true);
+			return (Map<String, String>) field.get(object);
+		} catch (IllegalAccessException e) {
+			throw cannotAccess(field, e);
+		} catch (RuntimeException e) {
+			//InaccessibleObjectException of Java 9 and later
+			throw cannotAccess(field, e);
+		}
+	}
+
+	private static IllegalStateException cannotAccess(Field field,
+			Exception cause) {
+		return new IllegalStateException("System Rules cannot access the"
+			+ " field " + field + ". On Java 9 and later run the tests with"
+			+ " --add-opens java.base/java.util=ALL-UNNAMED"
+			+ " --add-opens java.base/java.lang=ALL-UNNAMED", cause);
+	}
+}
@@ -0,0 +1,50 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.InputStream;
+
+/**
+ * An {@code InputStream} that fails every attempt to read it. It throws an
+ * {@code AssertionError}, whose stack trace is the stack trace of the reader.
+ * The first error is kept, so that it can be reported even if the code under
+ * test swallowed it.
+ */
+public class ForbiddenInputStream extends InputStream {
+	private AssertionError failure;
+
+	@Override
+	public int read() {
+		throw fail();
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		throw fail();
+	}
+
+	@Override
+	public long skip(long n) {
+		throw fail();
+	}
+
+	@Override
+	public int available() {
+		throw fail();
+	}
+
+	/**
+	 * Returns the error of the first attempt to read this stream.
+	 *
+	 * @return the error or {@code null} if nobody tried to read this stream.
+	 */
+	public synchronized AssertionError getFailure() {
+		return failure;
+	}
+
+	private synchronized AssertionError fail() {
+		AssertionError error = new AssertionError(
+			"The code under test tried to read System.in, which is forbidden.");
+		if (failure == null)
+			failure = error;
+		return error;
+	}
+}
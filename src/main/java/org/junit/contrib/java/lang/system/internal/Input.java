@@ -0,0 +1,41 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A single text that is provided by the {@link SystemInMock}. The text is
+ * provided as a sequence of buffers.
+ */
+public interface Input {
+	/**
+	 * The value of {@link #getRemainingBytes()} if the number of remaining
+	 * bytes is not known.
+	 */
+	long UNKNOWN = -1;
+
+	/**
+	 * Returns the next bytes of the text. The caller consumes the buffer's
+	 * remaining bytes before it asks for the next buffer.
+	 *
+	 * @return the next bytes or {@code null} at the end of the text.
+	 * @throws IOException if the bytes cannot be provided.
+	 */
+	ByteBuffer nextBytes() throws IOException;
+
+	/**
+	 * Returns the number of bytes that will be returned by future calls of
+	 * {@link #nextBytes()}.
+	 *
+	 * @return the number of bytes or {@link #UNKNOWN}.
+	 */
+	long getRemainingBytes();
+
+	/**
+	 * Releases the resources of the text. It is called at the end of the
+	 * text or when the {@code SystemInMock} is provided with new texts.
+	 *
+	 * @throws IOException if the resources cannot be released.
+	 */
+	void close() throws IOException;
+}
@@ -0,0 +1,72 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The binary format of a recorded {@code System.in} session. The file starts
+ * with a header (the bytes {@code SRIN} and a version byte) that is followed
+ * by a sequence of chunks. A chunk is the time in microseconds since the
+ * previous chunk (since the first read for the first chunk), the number of
+ * bytes and the bytes. The numbers are
+ * unsigned variable-length integers (seven bits per byte, least significant
+ * group first). A chunk has at most {@link #MAX_CHUNK_LENGTH} bytes.
+ */
+class InputRecordingFormat {
+	private static final byte[] HEADER = {'S', 'R', 'I', 'N', 1};
+
+	/**
+	 * The maximum number of bytes of a single chunk.
+	 */
+	static final int MAX_CHUNK_LENGTH = 64 * 1024;
+
+	static void writeHeader(OutputStream stream) throws IOException {
+		stream.write(HEADER);
+	}
+
+	static void readHeader(InputStream stream) throws IOException {
+		byte[] header = new byte[HEADER.length];
+		int n = 0;
+		while (n < header.length) {
+			int count = stream.read(header, n, header.length - n);
+			if (count == -1)
+				break;
+			n += count;
+		}
+		if (!Arrays.equals(header, HEADER))
+			throw new IOException("The file is not a recorded System.in session.");
+	}
+
+	static void writeNumber(OutputStream stream, long number)
+		throws IOException {
+		while ((number & ~0x7FL) != 0) {
+			stream.write((int) (number & 0x7F) | 0x80);
+			number >>>= 7;
+		}
+		stream.write((int) number);
+	}
+
+	/**
+	 * Reads a number.
+	 *
+	 * @return the number or -1 if the stream is at its end.
+	 */
+	static long readNumber(InputStream stream) throws IOException {
+		long number = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = stream.read();
+			if (b == -1)
+				if (shift == 0)
+					return -1;
+				else
+					throw new EOFException("Truncated recording of System.in.");
+			number |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return number;
+		}
+		throw new IOException("Malformed recording of System.in.");
+	}
+}
@@ -0,0 +1,204 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small parser for JSON texts. It creates a tree of {@link Map}s (objects),
+ * {@link List}s (arrays), {@link String}s, {@link Long}s or {@link Double}s
+ * (numbers), {@link Boolean}s and {@code null}.
+ */
+public class JsonParser {
+	private final String text;
+	private int position = 0;
+
+	/**
+	 * Parses the specified JSON text.
+	 *
+	 * @param text a JSON text.
+	 * @return the value of the text.
+	 * @throws IllegalArgumentException if the text is not valid JSON.
+	 */
+	public static Object parse(String text) {
+		JsonParser parser = new JsonParser(text);
+		Object value = parser.readValue();
+		parser.skipWhitespace();
+		if (parser.position != text.length())
+			throw parser.error("Unexpected character");
+		return value;
+	}
+
+	private JsonParser(String text) {
+		this.text = text;
+	}
+
+	private Object readValue() {
+		skipWhitespace();
+		if (position == text.length())
+			throw error("Unexpected end of text");
+		char c = text.charAt(position);
+		switch (c) {
+			case '{':
+				return readObject();
+			case '[':
+				return readArray();
+			case '"':
+				return readString();
+			case 't':
+				return readLiteral("true", Boolean.TRUE);
+			case 'f':
+				return readLiteral("false", Boolean.FALSE);
+			case 'n':
+				return readLiteral("null", null);
+			default:
+				if (c == '-' || (c >= '0' && c <= '9'))
+					return readNumber();
+				else
+					throw error("Unexpected character");
+		}
+	}
+
+	private Map<String, Object> readObject() {
+		Map<String, Object> object = new LinkedHashMap<String, Object>();
+		++position;
+		if (nextNonWhitespaceIs('}'))
+			return object;
+		do {
+			skipWhitespace();
+			if (position == text.length() || text.charAt(position) != '"')
+				throw error("Expected name");
+			String name = readString();
+			expect(':');
+			object.put(name, readValue());
+		} while (nextNonWhitespaceIs(','));
+		expect('}');
+		return object;
+	}
+
+	private List<Object> readArray() {
+		List<Object> array = new ArrayList<Object>();
+		++position;
+		if (nextNonWhitespaceIs(']'))
+			return array;
+		do
+			array.add(readValue());
+		while (nextNonWhitespaceIs(','));
+		expect(']');
+		return array;
+	}
+
+	private String readString() {
+		StringBuilder string = new StringBuilder();
+		++position;
+		while (true) {
+			if (position == text.length())
+				throw error("Unterminated string");
+			char c = text.charAt(position++);
+			if (c == '"')
+				return string.toString();
+			else if (c == '\\')
+				string.append(readEscapedCharacter());
+			else
+				string.append(c);
+		}
+	}
+
+	private char readEscapedCharacter() {
+		if (position == text.length())
+			throw error("Unterminated string");
+		char c = text.charAt(position++);
+		switch (c) {
+			case 'b':
+				return '\b';
+			case 'f':
+				return '\f';
+			case 'n':
+				return '\n';
+			case 'r':
+				return '\r';
+			case 't':
+				return '\t';
+			case 'u':
+				return readUnicodeEscape();
+			case '"':
+			case '\\':
+			case '/':
+				return c;
+			default:
+				throw error("Invalid escape sequence");
+		}
+	}
+
+	private char readUnicodeEscape() {
+		if (position + 4 > text.length())
+			throw error("Invalid unicode escape");
+		try {
+			char c = (char) Integer.parseInt(text.substring(position, position + 4), 16);
+			position += 4;
+			return c;
+		} catch (NumberFormatException e) {
+			throw error("Invalid unicode escape");
+		}
+	}
+
+	private Object readLiteral(String literal, Object value) {
+		if (!text.startsWith(literal, position))
+			throw error("Unexpected character");
+		position += literal.length();
+		return value;
+	}
+
+	private Number readNumber() {
+		int start = position;
+		boolean integral = true;
+		while (position < text.length()) {
+			char c = text.charAt(position);
+			if (c == '.' || c == 'e' || c == 'E')
+				integral = false;
+			else if (c != '-' && c != '+' && (c < '0' || c > '9'))
+				break;
+			++position;
+		}
+		String number = text.substring(start, position);
+		try {
+			if (integral)
+				try {
+					return Long.valueOf(number);
+				} catch (NumberFormatException tooLarge) {
+					return Double.valueOf(number);
+				}
+			else
+				return Double.valueOf(number);
+		} catch (NumberFormatException e) {
+			position = start;
+			throw error("Invalid number");
+		}
+	}
+
+	private boolean nextNonWhitespaceIs(char c) {
+		skipWhitespace();
+		if (position < text.length() && text.charAt(position) == c) {
+			++position;
+			return true;
+		} else
+			return false;
+	}
+
+	private void expect(char c) {
+		if (!nextNonWhitespaceIs(c))
+			throw error("Expected '" + c + "'");
+	}
+
+	private void skipWhitespace() {
+		while (position < text.length()
+			&& Character.isWhitespace(text.charAt(position)))
+			++position;
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position "
+			+ position + " of the JSON text: " + text);
+	}
+}
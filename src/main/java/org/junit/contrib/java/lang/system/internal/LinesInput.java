@@ -0,0 +1,82 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.nio.charset.CodingErrorAction.REPLACE;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.Iterator;
+
+/**
+ * An {@link Input} that provides lines, which are taken from an iterator on
+ * demand. Each line is followed by a line separator. The lines are encoded
+ * into a single buffer, which is reused for every call of
+ * {@link #nextBytes()}. Therefore the memory that is needed does not depend
+ * on the number of lines.
+ */
+public class LinesInput implements Input {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Iterator<? extends CharSequence> lines;
+	private final String lineSeparator;
+	private final CharsetEncoder encoder;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private CharBuffer pendingChars;
+	private boolean lineSeparatorIsNext = false;
+	private boolean flushing = false;
+
+	public LinesInput(Iterator<? extends CharSequence> lines,
+			String lineSeparator, Charset charset) {
+		this.lines = lines;
+		this.lineSeparator = lineSeparator;
+		this.encoder = charset.newEncoder()
+			.onMalformedInput(REPLACE)
+			.onUnmappableCharacter(REPLACE);
+	}
+
+	public ByteBuffer nextBytes() {
+		buffer.clear();
+		while (true) {
+			if (pendingChars == null) {
+				pendingChars = nextChars();
+				if (pendingChars == null)
+					break;
+				encoder.reset();
+			}
+			CoderResult result = flushing ? CoderResult.UNDERFLOW
+				: encoder.encode(pendingChars, buffer, true);
+			if (result.isUnderflow()) {
+				flushing = true;
+				result = encoder.flush(buffer);
+			}
+			if (result.isOverflow())
+				break;
+			pendingChars = null;
+			flushing = false;
+		}
+		buffer.flip();
+		return buffer.hasRemaining() ? buffer : null;
+	}
+
+	private CharBuffer nextChars() {
+		if (lineSeparatorIsNext) {
+			lineSeparatorIsNext = false;
+			return CharBuffer.wrap(lineSeparator);
+		} else if (lines.hasNext()) {
+			lineSeparatorIsNext = true;
+			return CharBuffer.wrap(lines.next());
+		} else
+			return null;
+	}
+
+	public long getRemainingBytes() {
+		boolean noMoreChars = pendingChars == null && !lineSeparatorIsNext
+			&& !lines.hasNext();
+		return noMoreChars ? 0 : UNKNOWN;
+	}
+
+	public void close() {
+	}
+}
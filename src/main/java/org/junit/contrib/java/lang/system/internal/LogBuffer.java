@@ -0,0 +1,319 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@code OutputStream} that stores the written bytes in a list of
+ * fixed-size chunks. Unlike {@link java.io.ByteArrayOutputStream} it never
+ * copies the bytes that have already been written when it grows and it
+ * decodes the text directly from the chunks.
+ * <p>The buffer keeps an index of the line breaks while the bytes are
+ * written. Therefore single lines can be decoded without scanning the text.
+ * <p>The buffer can be used by multiple threads. Writers only hold the lock
+ * while they copy their bytes. Readers hold it while they take a snapshot of
+ * the chunks and decode the text afterwards. This is possible because the
+ * bytes of a chunk are never changed after they have been written.
+ * {@link #reset()} starts new chunks instead of overwriting the old ones.
+ */
+public class LogBuffer extends OutputStream {
+	private static final int CHUNK_SIZE = 8192;
+	private static final int DECODE_BUFFER_SIZE = 8192;
+	private static final byte LINE_FEED = '\n';
+	private static final byte CARRIAGE_RETURN = '\r';
+
+	private final List<byte[]> chunks = new ArrayList<byte[]>();
+	private int positionInLastChunk = CHUNK_SIZE;
+	private long size = 0;
+	private long[] lineEnds = new long[16];
+	private int numberOfLines = 0;
+	private int numberOfResets = 0;
+	private int numberOfWaitingThreads = 0;
+
+	@Override
+	public synchronized void write(int b) {
+		if (positionInLastChunk == CHUNK_SIZE)
+			addChunk();
+		chunks.get(chunks.size() - 1)[positionInLastChunk++] = (byte) b;
+		if (b == LINE_FEED)
+			addLineEnd(size);
+		++size;
+		notifyWaitingThreads();
+	}
+
+	@Override
+	public synchronized void write(byte[] b, int off, int len) {
+		while (len > 0) {
+			if (positionInLastChunk == CHUNK_SIZE)
+				addChunk();
+			int n = Math.min(len, CHUNK_SIZE - positionInLastChunk);
+			System.arraycopy(b, off, chunks.get(chunks.size() - 1),
+				positionInLastChunk, n);
+			positionInLastChunk += n;
+			indexLineEnds(b, off, n);
+			size += n;
+			off += n;
+			len -= n;
+		}
+		notifyWaitingThreads();
+	}
+
+	private void notifyWaitingThreads() {
+		if (numberOfWaitingThreads > 0)
+			notifyAll();
+	}
+
+	private void indexLineEnds(byte[] b, int off, int len) {
+		for (int i = 0; i < len; ++i)
+			if (b[off + i] == LINE_FEED)
+				addLineEnd(size + i);
+	}
+
+	private void addLineEnd(long position) {
+		if (numberOfLines == lineEnds.length) {
+			long[] newLineEnds = new long[2 * lineEnds.length];
+			System.arraycopy(lineEnds, 0, newLineEnds, 0, numberOfLines);
+			lineEnds = newLineEnds;
+		}
+		lineEnds[numberOfLines++] = position;
+	}
+
+	private void addChunk() {
+		chunks.add(new byte[CHUNK_SIZE]);
+		positionInLastChunk = 0;
+	}
+
+	/**
+	 * Discards all bytes that have been written so far.
+	 */
+	public synchronized void reset() {
+		chunks.clear();
+		positionInLastChunk = CHUNK_SIZE;
+		size = 0;
+		lineEnds = new long[16];
+		numberOfLines = 0;
+		++numberOfResets;
+	}
+
+	/**
+	 * Returns the number of times {@link #reset()} has been called. Callers
+	 * that cache information about the lines use it for detecting that the
+	 * buffer has been cleared.
+	 *
+	 * @return the number of times {@link #reset()} has been called.
+	 */
+	public synchronized int getNumberOfResets() {
+		return numberOfResets;
+	}
+
+	/**
+	 * Returns the number of lines that are terminated by a line feed.
+	 *
+	 * @return the number of complete lines.
+	 */
+	public synchronized int getNumberOfLines() {
+		return numberOfLines;
+	}
+
+	/**
+	 * Decodes a single line without its line terminator.
+	 *
+	 * @param index       the index of the line.
+	 * @param charsetName the name of the charset.
+	 * @return the decoded line.
+	 * @throws IndexOutOfBoundsException   if there is no complete line with that
+	 *                                     index.
+	 * @throws UnsupportedEncodingException if the charset is not supported.
+	 */
+	public synchronized String getLine(int index, String charsetName)
+		throws UnsupportedEncodingException {
+		if (index < 0 || index >= numberOfLines)
+			throw new IndexOutOfBoundsException("There is no line " + index
+				+ ". The log has " + numberOfLines + " lines.");
+		long start = (index == 0) ? 0 : lineEnds[index - 1] + 1;
+		long end = lineEnds[index];
+		if (end > start && byteAt(end - 1) == CARRIAGE_RETURN)
+			--end;
+		byte[] line = new byte[(int) (end - start)];
+		copy(start, line);
+		return new String(line, charsetName);
+	}
+
+	private void copy(long start, byte[] target) {
+		for (int off = 0; off < target.length; ) {
+			long position = start + off;
+			int positionInChunk = (int) (position % CHUNK_SIZE);
+			int n = Math.min(target.length - off, CHUNK_SIZE - positionInChunk);
+			System.arraycopy(chunks.get((int) (position / CHUNK_SIZE)),
+				positionInChunk, target, off, n);
+			off += n;
+		}
+	}
+
+	/**
+	 * Waits until the specified bytes have been written.
+	 *
+	 * @param pattern       the bytes.
+	 * @param fromIndex     the index from which to start the search.
+	 * @param timeoutMillis the maximum time to wait in milliseconds.
+	 * @return the index of the first occurrence of the bytes at or after
+	 * {@code fromIndex} or -1 if they have not been written within the timeout.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public synchronized long awaitBytes(byte[] pattern, long fromIndex,
+			long timeoutMillis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		long searchStart = fromIndex;
+		while (true) {
+			long index = indexOf(pattern, searchStart);
+			if (index != -1)
+				return index;
+			searchStart = Math.max(searchStart, size - pattern.length + 1);
+			long remainingMillis = deadline - System.currentTimeMillis();
+			if (remainingMillis <= 0)
+				return -1;
+			int resetsBeforeWaiting = numberOfResets;
+			++numberOfWaitingThreads;
+			try {
+				wait(remainingMillis);
+			} finally {
+				--numberOfWaitingThreads;
+			}
+			if (numberOfResets != resetsBeforeWaiting)
+				searchStart = 0;
+		}
+	}
+
+	private long indexOf(byte[] pattern, long fromIndex) {
+		for (long start = fromIndex; start <= size - pattern.length; ++start)
+			if (matches(pattern, start))
+				return start;
+		return -1;
+	}
+
+	private boolean matches(byte[] pattern, long start) {
+		for (int i = 0; i < pattern.length; ++i)
+			if (byteAt(start + i) != pattern[i])
+				return false;
+		return true;
+	}
+
+	private byte byteAt(long position) {
+		return chunks.get((int) (position / CHUNK_SIZE))[(int) (position % CHUNK_SIZE)];
+	}
+
+	/**
+	 * Returns the number of bytes that have been written.
+	 *
+	 * @return the number of bytes that have been written.
+	 */
+	public synchronized long size() {
+		return size;
+	}
+
+	/**
+	 * Decodes the bytes that have been written using the specified charset.
+	 *
+	 * @param charsetName the name of the charset.
+	 * @return the decoded text.
+	 * @throws UnsupportedEncodingException if the charset is not supported.
+	 */
+	public String toString(String charsetName)
+		throws UnsupportedEncodingException {
+		return takeSnapshot().decode(charsetName);
+	}
+
+	/**
+	 * Decodes the bytes that have been written using the specified charset and
+	 * discards them. No byte is lost or returned twice if other threads write
+	 * to the buffer at the same time.
+	 *
+	 * @param charsetName the name of the charset.
+	 * @return the decoded text.
+	 * @throws UnsupportedEncodingException if the charset is not supported.
+	 */
+	public String toStringAndReset(String charsetName)
+		throws UnsupportedEncodingException {
+		Snapshot snapshot;
+		synchronized (this) {
+			snapshot = takeSnapshot();
+			reset();
+		}
+		return snapshot.decode(charsetName);
+	}
+
+	private synchronized Snapshot takeSnapshot() {
+		return new Snapshot(chunks.toArray(new byte[chunks.size()][]), size);
+	}
+
+	private static class Snapshot {
+		final byte[][] chunks;
+		final long size;
+
+		Snapshot(byte[][] chunks, long size) {
+			this.chunks = chunks;
+			this.size = size;
+		}
+
+		String decode(String charsetName) throws UnsupportedEncodingException {
+			Reader reader = new InputStreamReader(
+				new ChunksInputStream(chunks, 0, size), charsetName);
+			StringBuilder text = new StringBuilder((int) Math.min(size,
+				Integer.MAX_VALUE));
+			char[] buffer = new char[DECODE_BUFFER_SIZE];
+			try {
+				for (int n = reader.read(buffer); n != -1; n = reader.read(buffer))
+					text.append(buffer, 0, n);
+			} catch (IOException e) {
+				throw new RuntimeException(e); //cannot happen for chunks in memory
+			}
+			return text.toString();
+		}
+	}
+
+	private static class ChunksInputStream extends InputStream {
+		private final byte[][] chunks;
+		private final long end;
+		private long position;
+
+		ChunksInputStream(byte[][] chunks, long start, long end) {
+			this.chunks = chunks;
+			this.position = start;
+			this.end = end;
+		}
+
+		@Override
+		public int read() {
+			if (position == end)
+				return -1;
+			byte b = chunks[chunkIndex()][positionInChunk()];
+			++position;
+			return b & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (position == end)
+				return -1;
+			int n = (int) Math.min(Math.min(len, CHUNK_SIZE - positionInChunk()),
+				end - position);
+			System.arraycopy(chunks[chunkIndex()], positionInChunk(), b, off, n);
+			position += n;
+			return n;
+		}
+
+		private int chunkIndex() {
+			return (int) (position / CHUNK_SIZE);
+		}
+
+		private int positionInChunk() {
+			return (int) (position % CHUNK_SIZE);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An {@link Input} that provides the content of a file. The file is mapped
+ * into memory window by window. Therefore its content is never copied to the
+ * heap and files larger than 2 GB are supported, too.
+ */
+public class MappedFileInput implements Input {
+	private static final long WINDOW_SIZE = 64 * 1024 * 1024;
+
+	private final File file;
+	private FileChannel channel;
+	private long position = 0;
+
+	public MappedFileInput(File file) {
+		this.file = file;
+	}
+
+	public ByteBuffer nextBytes() throws IOException {
+		if (channel == null)
+			channel = new RandomAccessFile(file, "r").getChannel();
+		long size = channel.size();
+		if (position >= size)
+			return null;
+		long length = Math.min(WINDOW_SIZE, size - position);
+		ByteBuffer window = channel.map(READ_ONLY, position, length);
+		position += length;
+		return window;
+	}
+
+	public long getRemainingBytes() {
+		try {
+			long size = (channel == null) ? file.length() : channel.size();
+			return Math.max(0, size - position);
+		} catch (IOException e) {
+			return UNKNOWN;
+		}
+	}
+
+	public void close() throws IOException {
+		if (channel != null)
+			channel.close();
+	}
+}
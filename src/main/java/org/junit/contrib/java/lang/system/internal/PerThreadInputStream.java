@@ -0,0 +1,145 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.System.in;
+import static java.lang.System.setIn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * An {@code InputStream} that lets each thread read from its own stream. It
+ * is installed as {@code System.in} once and stays there. Threads without
+ * their own stream read from the original {@code System.in}.
+ * <p>It is a {@link ReadableByteChannel}, too, which delegates to the
+ * thread's stream if that stream is a channel.
+ */
+public class PerThreadInputStream extends InputStream
+		implements ReadableByteChannel {
+	private static final int MAX_BUFFER_SIZE = 8192;
+
+	private final InputStream originalIn;
+	private final ThreadLocal<InputStream> streamsOfThreads
+		= new ThreadLocal<InputStream>();
+	private final InheritableThreadLocal<InputStream> inheritedStreams
+		= new InheritableThreadLocal<InputStream>();
+
+	/**
+	 * Replaces {@code System.in} with a {@code PerThreadInputStream} unless
+	 * it is already one.
+	 *
+	 * @return the {@code PerThreadInputStream} that is {@code System.in}.
+	 */
+	public static synchronized PerThreadInputStream install() {
+		if (in instanceof PerThreadInputStream)
+			return (PerThreadInputStream) in;
+		PerThreadInputStream stream = new PerThreadInputStream(in);
+		setIn(stream);
+		return stream;
+	}
+
+	private PerThreadInputStream(InputStream originalIn) {
+		this.originalIn = originalIn;
+	}
+
+	/**
+	 * Lets the current thread read from the specified stream.
+	 *
+	 * @param stream                the stream.
+	 * @param includeSpawnedThreads whether threads that are created by the
+	 *                              current thread read from the stream, too.
+	 */
+	public void route(InputStream stream, boolean includeSpawnedThreads) {
+		if (includeSpawnedThreads)
+			inheritedStreams.set(stream);
+		else
+			streamsOfThreads.set(stream);
+	}
+
+	/**
+	 * Lets the current thread read from the original {@code System.in} again.
+	 */
+	public void removeRoute() {
+		streamsOfThreads.remove();
+		inheritedStreams.remove();
+	}
+
+	/**
+	 * Returns the {@code System.in} that has been replaced by this stream.
+	 *
+	 * @return the original {@code System.in}.
+	 */
+	public InputStream getOriginalIn() {
+		return originalIn;
+	}
+
+	/**
+	 * Returns the stream that the current thread reads from.
+	 *
+	 * @return the stream that the current thread reads from.
+	 */
+	public InputStream getStreamOfCurrentThread() {
+		InputStream stream = streamsOfThreads.get();
+		if (stream == null)
+			stream = inheritedStreams.get();
+		return (stream == null) ? originalIn : stream;
+	}
+
+	@Override
+	public int read() throws IOException {
+		return getStreamOfCurrentThread().read();
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		return getStreamOfCurrentThread().read(b, off, len);
+	}
+
+	public int read(ByteBuffer dst) throws IOException {
+		InputStream stream = getStreamOfCurrentThread();
+		if (stream instanceof ReadableByteChannel)
+			return ((ReadableByteChannel) stream).read(dst);
+		byte[] buffer = new byte[Math.min(dst.remaining(), MAX_BUFFER_SIZE)];
+		int n = stream.read(buffer);
+		if (n > 0)
+			dst.put(buffer, 0, n);
+		return n;
+	}
+
+	public boolean isOpen() {
+		InputStream stream = getStreamOfCurrentThread();
+		return !(stream instanceof ReadableByteChannel)
+			|| ((ReadableByteChannel) stream).isOpen();
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		return getStreamOfCurrentThread().skip(n);
+	}
+
+	@Override
+	public int available() throws IOException {
+		return getStreamOfCurrentThread().available();
+	}
+
+	@Override
+	public void close() throws IOException {
+		getStreamOfCurrentThread().close();
+	}
+
+	@Override
+	public void mark(int readlimit) {
+		getStreamOfCurrentThread().mark(readlimit);
+	}
+
+	@Override
+	public void reset() throws IOException {
+		getStreamOfCurrentThread().reset();
+	}
+
+	@Override
+	public boolean markSupported() {
+		return getStreamOfCurrentThread().markSupported();
+	}
+}
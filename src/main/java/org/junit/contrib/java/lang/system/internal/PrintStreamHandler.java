@@ -18,6 +18,11 @@ public enum PrintStreamHandler {
 			return out;
 		}
 
+		@Override
+		String getLogFileExtension() {
+			return ".out";
+		}
+
 		@Override
 		void replaceCurrentStreamWithStream(PrintStream stream) {
 			setOut(stream);
@@ -29,6 +34,11 @@ public enum PrintStreamHandler {
 			return err;
 		}
 
+		@Override
+		String getLogFileExtension() {
+			return ".err";
+		}
+
 		@Override
 		void replaceCurrentStreamWithStream(PrintStream stream) {
 			setErr(stream);
@@ -51,5 +61,7 @@ public enum PrintStreamHandler {
 
 	abstract PrintStream getStream();
 
+	abstract String getLogFileExtension();
+
 	abstract void replaceCurrentStreamWithStream(PrintStream stream);
 }
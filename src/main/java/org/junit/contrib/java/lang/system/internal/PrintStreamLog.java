@@ -1,6 +1,8 @@
 package org.junit.contrib.java.lang.system.internal;
 
-import java.io.ByteArrayOutputStream;
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+import java.io.File;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
@@ -14,29 +16,63 @@ import org.junit.runners.model.Statement;
 public abstract class PrintStreamLog implements TestRule {
 	private static final boolean NO_AUTO_FLUSH = false;
 	private static final String ENCODING = "UTF-8";
-	private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+	private final LogBuffer log = new LogBuffer();
 	private final LogMode mode;
 	private final PrintStreamHandler printStreamHandler;
+	private final File logDirectory;
 
 	protected PrintStreamLog(LogMode mode, PrintStreamHandler printStreamHandler) {
+		this(mode, printStreamHandler, new File("target", "system-rules"));
+	}
+
+	protected PrintStreamLog(LogMode mode, PrintStreamHandler printStreamHandler,
+			File logDirectory) {
 		this.printStreamHandler = printStreamHandler;
 		if (mode == null)
 			throw new NullPointerException("The LogMode is missing.");
 		this.mode = mode;
+		this.logDirectory = logDirectory;
 	}
 
-	public Statement apply(final Statement base, Description description) {
+	public Statement apply(final Statement base, final Description description) {
 		return printStreamHandler.createRestoreStatement(new Statement() {
 			@Override
 			public void evaluate() throws Throwable {
-				PrintStream wrappedStream = new PrintStream(getNewStream(), NO_AUTO_FLUSH,
-					ENCODING);
-				printStreamHandler.replaceCurrentStreamWithStream(wrappedStream);
-				base.evaluate();
+				if (mode == LogMode.LOG_AND_WRITE_TO_FILE)
+					evaluateWithFile(base, description);
+				else
+					evaluateWithStream(base, getNewStream());
 			}
 		});
 	}
 
+	private void evaluateWithFile(Statement base, Description description)
+		throws Throwable {
+		OutputStream file = new AsyncFileOutputStream(getLogFile(description));
+		try {
+			evaluateWithStream(base, new TeeOutputStream(log, file));
+		} catch (Throwable e) {
+			closeQuietly(file);
+			throw e;
+		}
+		file.close();
+	}
+
+	private File getLogFile(Description description) {
+		String name = (description == null) ? "unknown test"
+			: description.getDisplayName();
+		return new File(logDirectory, name.replaceAll("[^\\w.-]", "_")
+			+ printStreamHandler.getLogFileExtension());
+	}
+
+	private void evaluateWithStream(Statement base, OutputStream newStream)
+		throws Throwable {
+		PrintStream wrappedStream = new PrintStream(newStream, NO_AUTO_FLUSH,
+			ENCODING);
+		printStreamHandler.replaceCurrentStreamWithStream(wrappedStream);
+		base.evaluate();
+	}
+
 	private OutputStream getNewStream() throws UnsupportedEncodingException {
 		switch (mode) {
 			case LOG_AND_WRITE_TO_STREAM:
@@ -49,6 +85,15 @@ public abstract class PrintStreamLog implements TestRule {
 		}
 	}
 
+	/**
+	 * Returns the buffer that stores the log.
+	 *
+	 * @return the buffer that stores the log.
+	 */
+	protected LogBuffer getLogBuffer() {
+		return log;
+	}
+
 	/**
 	 * Clears the log. The log can be used again.
 	 */
@@ -68,4 +113,20 @@ public abstract class PrintStreamLog implements TestRule {
 			throw new RuntimeException(e);
 		}
 	}
+
+	/**
+	 * Returns the text written to the stream and clears the log. No text is
+	 * lost or returned twice if other threads write to the stream at the same
+	 * time.
+	 *
+	 * @return the text written to the stream since the log has been cleared.
+	 * @since 1.10.0
+	 */
+	public String getAndClear() {
+		try {
+			return log.toStringAndReset(ENCODING);
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
 }
@@ -0,0 +1,100 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link Input} that answers prompts. Each answer is provided after its
+ * prompt has been written to the log of a {@link PrintStreamLog}. A read
+ * blocks until the next prompt has been written and fails if it is not
+ * written within the timeout. The text ends after the last answer.
+ */
+public class PromptedInput implements Input {
+	private static final String LOG_ENCODING = "UTF-8";
+
+	private final LogBuffer log;
+	private final Charset charset;
+	private final List<byte[]> prompts = new ArrayList<byte[]>();
+	private final List<String> promptTexts = new ArrayList<String>();
+	private final List<String> answers = new ArrayList<String>();
+	private volatile long timeoutMillis;
+	private int nextStep = 0;
+	private long searchStart = 0;
+	private int numberOfResets;
+
+	public PromptedInput(PrintStreamLog log, Charset charset,
+			long timeoutMillis) {
+		this.log = log.getLogBuffer();
+		this.charset = charset;
+		this.timeoutMillis = timeoutMillis;
+		this.numberOfResets = this.log.getNumberOfResets();
+	}
+
+	/**
+	 * Adds a step to the dialog.
+	 *
+	 * @param prompt the text that has to be written before the answer is
+	 *               provided.
+	 * @param answer the answer.
+	 */
+	public synchronized void addAnswer(String prompt, String answer) {
+		try {
+			prompts.add(prompt.getBytes(LOG_ENCODING));
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+		promptTexts.add(prompt);
+		answers.add(answer);
+	}
+
+	/**
+	 * Sets the maximum time that a read waits for a prompt.
+	 *
+	 * @param timeoutMillis the timeout in milliseconds.
+	 */
+	public void setTimeout(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public synchronized ByteBuffer nextBytes() throws IOException {
+		if (nextStep == answers.size())
+			return null;
+		byte[] prompt = prompts.get(nextStep);
+		long index = awaitPrompt(prompt);
+		if (index == -1)
+			throw new IOException("The prompt \"" + promptTexts.get(nextStep)
+				+ "\" has not been written within " + timeoutMillis + " ms.");
+		searchStart = index + prompt.length;
+		return ByteBuffer.wrap(answers.get(nextStep++).getBytes(charset));
+	}
+
+	private long awaitPrompt(byte[] prompt) throws InterruptedIOException {
+		int currentNumberOfResets = log.getNumberOfResets();
+		if (currentNumberOfResets != numberOfResets) {
+			searchStart = 0;
+			numberOfResets = currentNumberOfResets;
+		}
+		try {
+			return log.awaitBytes(prompt, searchStart, timeoutMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+				"Interrupted while waiting for a prompt.");
+		}
+	}
+
+	public synchronized long getRemainingBytes() {
+		long remainingBytes = 0;
+		for (String answer : answers.subList(nextStep, answers.size()))
+			remainingBytes += answer.getBytes(charset).length;
+		return remainingBytes;
+	}
+
+	public void close() {
+	}
+}
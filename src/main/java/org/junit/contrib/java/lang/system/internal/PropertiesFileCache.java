@@ -0,0 +1,143 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A JVM-wide cache of parsed properties files. Each file is read once. It is
+ * read again only if its modification time or its length changed. The cached
+ * properties are immutable and therefore can be shared by all rules.
+ */
+public class PropertiesFileCache {
+	private static final ConcurrentHashMap<String, Entry> CACHE
+		= new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * Returns the properties of a file.
+	 *
+	 * @param name the name of the file.
+	 * @return the properties of the file.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public static Map<String, String> getPropertiesOfFile(String name)
+		throws IOException {
+		File file = new File(name).getAbsoluteFile();
+		if (!file.isFile())
+			throw new FileNotFoundException("The file " + name
+				+ " does not exist.");
+		return getProperties("file:" + file.getPath(), file.lastModified(),
+			file.length(), new FileInputStreamOpener(file));
+	}
+
+	/**
+	 * Returns the properties of a resource. The name of the resource is
+	 * resolved by {@link Class#getResource(String)} of the specified class.
+	 *
+	 * @param type the class that resolves the name.
+	 * @param name the name of the resource.
+	 * @return the properties of the resource.
+	 * @throws IOException if the resource cannot be read.
+	 */
+	public static Map<String, String> getPropertiesOfResource(Class<?> type,
+			String name) throws IOException {
+		URL resource = type.getResource(name);
+		if (resource == null)
+			throw new FileNotFoundException("The resource " + name
+				+ " does not exist.");
+		File file = toFile(resource);
+		if (file == null)
+			return getProperties(resource.toString(), 0, 0,
+				new UrlStreamOpener(resource));
+		else
+			return getProperties(resource.toString(), file.lastModified(),
+				file.length(), new FileInputStreamOpener(file));
+	}
+
+	private static File toFile(URL resource) {
+		if (!"file".equals(resource.getProtocol()))
+			return null;
+		try {
+			return new File(resource.toURI());
+		} catch (URISyntaxException e) {
+			return null;
+		}
+	}
+
+	private static Map<String, String> getProperties(String key,
+			long lastModified, long length, StreamOpener opener)
+		throws IOException {
+		Entry entry = CACHE.get(key);
+		if (entry == null || entry.lastModified != lastModified
+			|| entry.length != length) {
+			entry = new Entry(lastModified, length, load(opener));
+			CACHE.put(key, entry);
+		}
+		return entry.properties;
+	}
+
+	private static Map<String, String> load(StreamOpener opener)
+		throws IOException {
+		Properties properties = new Properties();
+		InputStream stream = opener.open();
+		try {
+			properties.load(stream);
+		} finally {
+			stream.close();
+		}
+		Map<String, String> map = new LinkedHashMap<String, String>();
+		for (String name : properties.stringPropertyNames())
+			map.put(name, properties.getProperty(name));
+		return unmodifiableMap(map);
+	}
+
+	private static class Entry {
+		final long lastModified;
+		final long length;
+		final Map<String, String> properties;
+
+		Entry(long lastModified, long length, Map<String, String> properties) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.properties = properties;
+		}
+	}
+
+	private interface StreamOpener {
+		InputStream open() throws IOException;
+	}
+
+	private static class FileInputStreamOpener implements StreamOpener {
+		private final File file;
+
+		FileInputStreamOpener(File file) {
+			this.file = file;
+		}
+
+		public InputStream open() throws IOException {
+			return new FileInputStream(file);
+		}
+	}
+
+	private static class UrlStreamOpener implements StreamOpener {
+		private final URL url;
+
+		UrlStreamOpener(URL url) {
+			this.url = url;
+		}
+
+		public InputStream open() throws IOException {
+			return url.openStream();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link TrackingProperties.AccessListener} that counts the reads and
+ * writes of each property. The call sites of the accesses are sampled: the
+ * first access of a property and every {@code sampleInterval}th access
+ * afterwards record the caller. At most {@link #MAX_CALL_SITES} call sites
+ * are kept per property.
+ */
+public class PropertyAccessCounter implements TrackingProperties.AccessListener {
+	/**
+	 * The maximum number of call sites per property.
+	 */
+	public static final int MAX_CALL_SITES = 5;
+
+	private final int sampleInterval;
+	private final ConcurrentMap<Object, Accesses> accesses
+		= new ConcurrentHashMap<Object, Accesses>();
+
+	public PropertyAccessCounter(int sampleInterval) {
+		this.sampleInterval = sampleInterval;
+	}
+
+	public void propertyRead(Object key) {
+		getAccesses(key).countRead();
+	}
+
+	public void propertyWritten(Object key) {
+		getAccesses(key).countWrite();
+	}
+
+	private Accesses getAccesses(Object key) {
+		Accesses accessesOfKey = accesses.get(key);
+		if (accessesOfKey == null) {
+			accesses.putIfAbsent(key, new Accesses());
+			accessesOfKey = accesses.get(key);
+		}
+		return accessesOfKey;
+	}
+
+	/**
+	 * Returns the number of reads of a property.
+	 *
+	 * @param key the name of the property.
+	 * @return the number of reads.
+	 */
+	public long getNumberOfReads(Object key) {
+		Accesses accessesOfKey = accesses.get(key);
+		return (accessesOfKey == null) ? 0 : accessesOfKey.reads.get();
+	}
+
+	/**
+	 * Returns the number of writes of a property.
+	 *
+	 * @param key the name of the property.
+	 * @return the number of writes.
+	 */
+	public long getNumberOfWrites(Object key) {
+		Accesses accessesOfKey = accesses.get(key);
+		return (accessesOfKey == null) ? 0 : accessesOfKey.writes.get();
+	}
+
+	/**
+	 * Creates a report of the accesses. The properties with the most
+	 * accesses are reported first.
+	 *
+	 * @return the report.
+	 */
+	public String createReport() {
+		List<Map.Entry<Object, Accesses>> entries
+			= new ArrayList<Map.Entry<Object, Accesses>>(accesses.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<Object, Accesses>>() {
+			public int compare(Map.Entry<Object, Accesses> first,
+					Map.Entry<Object, Accesses> second) {
+				long firstTotal = first.getValue().getTotal();
+				long secondTotal = second.getValue().getTotal();
+				return (firstTotal < secondTotal) ? 1
+					: ((firstTotal == secondTotal) ? 0 : -1);
+			}
+		});
+		StringBuilder report = new StringBuilder();
+		for (Map.Entry<Object, Accesses> entry : entries)
+			entry.getValue().appendTo(report, entry.getKey());
+		return report.toString();
+	}
+
+	private class Accesses {
+		final AtomicLong reads = new AtomicLong();
+		final AtomicLong writes = new AtomicLong();
+		private final Map<String, Long> callSites
+			= new LinkedHashMap<String, Long>();
+
+		void countRead() {
+			reads.incrementAndGet();
+			sampleCallSiteIfDue();
+		}
+
+		void countWrite() {
+			writes.incrementAndGet();
+			sampleCallSiteIfDue();
+		}
+
+		private void sampleCallSiteIfDue() {
+			if ((getTotal() - 1) % sampleInterval == 0)
+				sampleCallSite();
+		}
+
+		long getTotal() {
+			return reads.get() + writes.get();
+		}
+
+		private synchronized void sampleCallSite() {
+			String callSite = findCallSite();
+			Long samples = callSites.get(callSite);
+			if (samples != null)
+				callSites.put(callSite, samples + 1);
+			else if (callSites.size() < MAX_CALL_SITES)
+				callSites.put(callSite, 1L);
+		}
+
+		private String findCallSite() {
+			for (StackTraceElement element : new Throwable().getStackTrace())
+				if (!element.getClassName().startsWith("java.")
+					&& !element.getClassName().startsWith(
+						TrackingProperties.class.getName())
+					&& !element.getClassName().startsWith(
+						PropertyAccessCounter.class.getName()))
+					return element.toString();
+			return "unknown";
+		}
+
+		synchronized void appendTo(StringBuilder report, Object key) {
+			report.append(key).append(": ").append(reads.get())
+				.append(" reads, ").append(writes.get()).append(" writes\n");
+			for (Map.Entry<String, Long> callSite : callSites.entrySet())
+				report.append("    at ").append(callSite.getKey()).append(" (")
+					.append(callSite.getValue()).append(" samples)\n");
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.contrib.java.lang.system.internal.InputRecordingFormat.MAX_CHUNK_LENGTH;
+import static org.junit.contrib.java.lang.system.internal.InputRecordingFormat.writeHeader;
+import static org.junit.contrib.java.lang.system.internal.InputRecordingFormat.writeNumber;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An {@code InputStream} that records the bytes read from another stream
+ * together with the time between the reads. The recording is written to a
+ * file in the {@link InputRecordingFormat}. The bytes of successive reads
+ * are coalesced into a single chunk as long as they are read within
+ * {@link #MAX_DURATION_OF_CHUNK_NANOS} after the first bytes of the chunk.
+ * Therefore readers that read single bytes do not create a chunk per byte.
+ * The clock starts with the first read, like the clock of the
+ * {@link ReplayInput}.
+ */
+public class RecordingInputStream extends FilterInputStream {
+	/**
+	 * The maximum time between the first and the last read of a chunk.
+	 */
+	public static final long MAX_DURATION_OF_CHUNK_NANOS = MILLISECONDS.toNanos(1);
+
+	private final OutputStream recording;
+	private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+	private long timeOfLastChunk = -1;
+	private long timeOfChunk;
+
+	public RecordingInputStream(InputStream in, File file) throws IOException {
+		super(in);
+		recording = new BufferedOutputStream(new FileOutputStream(file));
+		writeHeader(recording);
+	}
+
+	@Override
+	public int read() throws IOException {
+		startClock();
+		int b = super.read();
+		if (b != -1)
+			record(new byte[] {(byte) b}, 0, 1);
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		startClock();
+		int n = super.read(b, off, len);
+		if (n > 0)
+			record(b, off, n);
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		byte[] buffer = new byte[(int) Math.min(n, 8192)];
+		int skipped = read(buffer, 0, buffer.length);
+		return (skipped == -1) ? 0 : skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private synchronized void startClock() {
+		if (timeOfLastChunk == -1)
+			timeOfLastChunk = System.nanoTime();
+	}
+
+	private synchronized void record(byte[] b, int off, int len)
+		throws IOException {
+		long now = System.nanoTime();
+		if (chunk.size() > 0 && now - timeOfChunk > MAX_DURATION_OF_CHUNK_NANOS)
+			writeChunk();
+		if (chunk.size() == 0)
+			timeOfChunk = now;
+		while (len > 0) {
+			int n = Math.min(len, MAX_CHUNK_LENGTH - chunk.size());
+			chunk.write(b, off, n);
+			off += n;
+			len -= n;
+			if (chunk.size() == MAX_CHUNK_LENGTH) {
+				writeChunk();
+				timeOfChunk = now;
+			}
+		}
+	}
+
+	private void writeChunk() throws IOException {
+		writeNumber(recording, NANOSECONDS.toMicros(timeOfChunk - timeOfLastChunk));
+		writeNumber(recording, chunk.size());
+		chunk.writeTo(recording);
+		chunk.reset();
+		timeOfLastChunk = timeOfChunk;
+	}
+
+	/**
+	 * Finishes the recording. The wrapped stream is not closed.
+	 *
+	 * @throws IOException if the recording cannot be written.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			if (chunk.size() > 0)
+				writeChunk();
+		} finally {
+			recording.close();
+		}
+	}
+}
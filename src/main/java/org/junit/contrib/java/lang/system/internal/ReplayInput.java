@@ -0,0 +1,95 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.contrib.java.lang.system.internal.InputRecordingFormat.MAX_CHUNK_LENGTH;
+import static org.junit.contrib.java.lang.system.internal.InputRecordingFormat.readHeader;
+import static org.junit.contrib.java.lang.system.internal.InputRecordingFormat.readNumber;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link Input} that replays a session that has been recorded by the
+ * {@link RecordingInputStream}. The file is read chunk by chunk, so that
+ * long sessions are not loaded into memory. With original timing each chunk
+ * is provided at the time that has been recorded for it, measured from the
+ * first request. Time that the reader spends between reads does not delay the
+ * session.
+ */
+public class ReplayInput implements Input {
+	private final DataInputStream stream;
+	private final boolean originalTiming;
+	private byte[] buffer = new byte[8192];
+	private boolean endOfRecording = false;
+	private long startNanos = -1;
+	private long timeOfChunkMicros = 0;
+
+	public ReplayInput(File file, boolean originalTiming) throws IOException {
+		this.stream = new DataInputStream(
+			new BufferedInputStream(new FileInputStream(file)));
+		this.originalTiming = originalTiming;
+		try {
+			readHeader(stream);
+		} catch (IOException e) {
+			stream.close();
+			throw e;
+		}
+	}
+
+	public ByteBuffer nextBytes() throws IOException {
+		if (endOfRecording)
+			return null;
+		if (startNanos == -1)
+			startNanos = System.nanoTime();
+		long delayMicros = readNumber(stream);
+		if (delayMicros == -1) {
+			endOfRecording = true;
+			return null;
+		}
+		int length = readLength();
+		if (length > buffer.length)
+			buffer = new byte[Math.max(length, 2 * buffer.length)];
+		stream.readFully(buffer, 0, length);
+		timeOfChunkMicros += delayMicros;
+		if (originalTiming)
+			awaitTimeOfChunk();
+		return ByteBuffer.wrap(buffer, 0, length);
+	}
+
+	private int readLength() throws IOException {
+		long length = readNumber(stream);
+		if (length == -1)
+			throw new EOFException("Truncated recording of System.in.");
+		else if (length > MAX_CHUNK_LENGTH)
+			throw new IOException("Malformed recording of System.in. A chunk"
+				+ " has " + length + " bytes, but at most " + MAX_CHUNK_LENGTH
+				+ " bytes are allowed.");
+		return (int) length;
+	}
+
+	private void awaitTimeOfChunk() throws InterruptedIOException {
+		long elapsedMicros = NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+		try {
+			MICROSECONDS.sleep(timeOfChunkMicros - elapsedMicros);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+				"Interrupted while replaying System.in.");
+		}
+	}
+
+	public long getRemainingBytes() {
+		return endOfRecording ? 0 : UNKNOWN;
+	}
+
+	public void close() throws IOException {
+		stream.close();
+	}
+}
@@ -1,31 +1,44 @@
 package org.junit.contrib.java.lang.system.internal;
 
-import static java.lang.System.*;
-
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import static java.lang.System.getProperties;
+import static java.lang.System.getProperty;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
 
+/**
+ * Restores the original values of specific system properties. The value of
+ * a property is recorded when the property is added for the first time.
+ * All properties are restored while the system properties are locked once.
+ */
 public class RestoreSpecificSystemProperties {
-	private final List<String> properties = new ArrayList<String>();
-	private final List<String> originalValues = new ArrayList<String>();
+	private final Map<String, String> originalValues
+		= new LinkedHashMap<String, String>();
 
 	public void add(String property) {
-		properties.add(property);
-		originalValues.add(getProperty(property));
+		add(property, getProperty(property));
+	}
+
+	public void add(String property, String originalValue) {
+		if (!originalValues.containsKey(property))
+			originalValues.put(property, originalValue);
 	}
 
 	public void restore() {
-		Iterator<String> itOriginalValues = originalValues.iterator();
-		for (String property : properties)
-			restore(property, itOriginalValues.next());
+		Properties properties = getProperties();
+		synchronized (properties) {
+			for (Map.Entry<String, String> original : originalValues.entrySet())
+				restore(properties, original.getKey(), original.getValue());
+		}
+		originalValues.clear();
 	}
 
-	private void restore(String property, String originalValue) {
+	private void restore(Properties properties, String property,
+			String originalValue) {
 		if (originalValue == null)
-			clearProperty(property);
+			properties.remove(property);
 		else
-			setProperty(property, originalValue);
+			properties.setProperty(property, originalValue);
 	}
 }
@@ -0,0 +1,167 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.System.identityHashCode;
+import static java.lang.management.ManagementFactory.getThreadMXBean;
+
+import java.io.InputStream;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.runners.model.Statement;
+
+/**
+ * A {@code Statement} that fails as soon as a thread of the test is blocked
+ * while reading the original {@code System.in} for longer than the timeout.
+ * <p>The wrapped statement is evaluated by a separate thread. The watchdog
+ * samples the threads whenever the timeout has elapsed. It only considers
+ * threads that have been started after the watchdog, i.e. by the test. A
+ * thread is blocked if it reads the original {@code System.in} and has the
+ * same top frame in two consecutive samples.
+ * <p>Up to Java 18 the JDK's {@code System.in} is a
+ * {@code BufferedInputStream} that locks its own monitor while it reads.
+ * Therefore a thread reads the original {@code System.in} if it holds its
+ * monitor. From Java 19 on it uses an internal lock instead. A thread that
+ * does not hold the monitor of any stream of the original's class is
+ * considered reading the original {@code System.in} if it is in a read of
+ * that class and all frames above it are frames of the JDK. This may report
+ * threads that read another stream of the same class, too.
+ * <p>If there are blocked threads, the watchdog interrupts the
+ * statement's thread and throws an {@code AssertionError} with the stack
+ * traces of the blocked threads. Otherwise it waits for the statement again.
+ * Slow tests and tests that read other streams are not affected.
+ */
+public class StandardInputWatchdog extends Statement {
+	private final Statement base;
+	private final long timeoutMillis;
+	private final InputStream originalIn;
+	private Map<Long, StackTraceElement> topFramesOfPreviousSample
+		= new HashMap<Long, StackTraceElement>();
+
+	/**
+	 * Creates a watchdog for the specified statement.
+	 *
+	 * @param base          the statement.
+	 * @param timeoutMillis the time in milliseconds that a thread may be
+	 *                      blocked.
+	 * @param originalIn    the {@code System.in} that has been replaced by
+	 *                      the rule.
+	 */
+	public StandardInputWatchdog(Statement base, long timeoutMillis,
+			InputStream originalIn) {
+		this.base = base;
+		this.timeoutMillis = timeoutMillis;
+		this.originalIn = originalIn;
+	}
+
+	@Override
+	public void evaluate() throws Throwable {
+		Set<Thread> threadsBeforeTest = new HashSet<Thread>(
+			Thread.getAllStackTraces().keySet());
+		StatementThread thread = new StatementThread(base);
+		thread.start();
+		while (true) {
+			thread.join(timeoutMillis);
+			if (!thread.isAlive())
+				break;
+			String blockedThreads = findThreadsBlockedInRead(threadsBeforeTest);
+			if (blockedThreads.length() != 0) {
+				thread.interrupt();
+				throw new AssertionError("Reading System.in has been blocked for "
+					+ timeoutMillis + " ms. Blocked threads:" + blockedThreads);
+			}
+		}
+		if (thread.failure != null)
+			throw thread.failure;
+	}
+
+	private String findThreadsBlockedInRead(Set<Thread> threadsBeforeTest) {
+		Map<Long, StackTraceElement> topFrames
+			= new HashMap<Long, StackTraceElement>();
+		StringBuilder threads = new StringBuilder();
+		for (ThreadInfo info : getThreadInfosOfTest(threadsBeforeTest))
+			if (info != null && isReadingOriginalIn(info)) {
+				StackTraceElement topFrame = info.getStackTrace()[0];
+				topFrames.put(info.getThreadId(), topFrame);
+				if (topFrame.equals(
+						topFramesOfPreviousSample.get(info.getThreadId())))
+					append(info, threads);
+			}
+		topFramesOfPreviousSample = topFrames;
+		return threads.toString();
+	}
+
+	private ThreadInfo[] getThreadInfosOfTest(Set<Thread> threadsBeforeTest) {
+		List<Long> ids = new ArrayList<Long>();
+		for (Thread thread : Thread.getAllStackTraces().keySet())
+			if (!threadsBeforeTest.contains(thread))
+				ids.add(thread.getId());
+		long[] idArray = new long[ids.size()];
+		for (int i = 0; i < idArray.length; ++i)
+			idArray[i] = ids.get(i);
+		return getThreadMXBean().getThreadInfo(idArray, true, false);
+	}
+
+	private boolean isReadingOriginalIn(ThreadInfo info) {
+		if (info.getStackTrace().length == 0)
+			return false;
+		String className = originalIn.getClass().getName();
+		boolean holdsMonitorOfStream = false;
+		for (MonitorInfo monitor : info.getLockedMonitors())
+			if (monitor.getClassName().equals(className)) {
+				if (monitor.getIdentityHashCode() == identityHashCode(originalIn))
+					return true;
+				holdsMonitorOfStream = true;
+			}
+		return !holdsMonitorOfStream
+			&& isInReadOfClass(info.getStackTrace(), className);
+	}
+
+	private boolean isInReadOfClass(StackTraceElement[] stackTrace,
+			String className) {
+		for (StackTraceElement element : stackTrace)
+			if (element.getClassName().equals(className))
+				return element.getMethodName().startsWith("read")
+					|| element.getMethodName().equals("fill");
+			else if (!isFrameOfJdk(element))
+				return false;
+		return false;
+	}
+
+	private boolean isFrameOfJdk(StackTraceElement element) {
+		String className = element.getClassName();
+		return className.startsWith("java.") || className.startsWith("jdk.")
+			|| className.startsWith("sun.");
+	}
+
+	private void append(ThreadInfo info, StringBuilder threads) {
+		threads.append("\n\"").append(info.getThreadName()).append("\"");
+		for (StackTraceElement element : info.getStackTrace())
+			threads.append("\n\tat ").append(element);
+	}
+
+	private static class StatementThread extends Thread {
+		private final Statement statement;
+		private Throwable failure;
+
+		StatementThread(Statement statement) {
+			super("Test with System.in watchdog");
+			this.statement = statement;
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			try {
+				statement.evaluate();
+			} catch (Throwable e) {
+				failure = e;
+			}
+		}
+	}
+}
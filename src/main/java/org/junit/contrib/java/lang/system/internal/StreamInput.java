@@ -0,0 +1,38 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link Input} that provides the bytes of an {@code InputStream}. The
+ * bytes are read into a single buffer, which is reused for every read.
+ */
+public class StreamInput implements Input {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final InputStream stream;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private boolean endOfStream = false;
+
+	public StreamInput(InputStream stream) {
+		this.stream = stream;
+	}
+
+	public ByteBuffer nextBytes() throws IOException {
+		int n = stream.read(buffer);
+		if (n == -1) {
+			endOfStream = true;
+			return null;
+		} else
+			return ByteBuffer.wrap(buffer, 0, n);
+	}
+
+	public long getRemainingBytes() {
+		return endOfStream ? 0 : UNKNOWN;
+	}
+
+	public void close() throws IOException {
+		stream.close();
+	}
+}
@@ -0,0 +1,332 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code InputStream} that replaces {@code System.in}. It provides a
+ * sequence of texts. {@link #read()} returns -1 once when the end of a single
+ * text is reached and continues with the next text afterwards.
+ * <p>The bytes are read directly from the texts' buffers. Therefore bulk reads
+ * like {@link #read(byte[], int, int)} copy whole ranges of bytes.
+ * <p>A {@link Throttle} can limit the bytes that are returned by a single
+ * read and let reads block.
+ * <p>Texts like the {@link PromptedInput} may block while they provide their
+ * next bytes. The stream is not locked meanwhile, so that other threads can
+ * call methods like {@link #available()} or {@link #provide(List)}. Only a
+ * single thread fetches bytes from a text at a time.
+ * <p>The stream counts the read calls and the bytes that have been read.
+ * <p>It is a {@link ReadableByteChannel}, too. Code that reads
+ * {@code System.in} through a channel can use it directly. Then
+ * {@link #read(ByteBuffer)} transfers the bytes directly from the texts'
+ * buffers to the destination buffer.
+ */
+public class SystemInMock extends InputStream implements ReadableByteChannel {
+	private static final ByteBuffer NO_BYTES_YET = ByteBuffer.allocate(0);
+
+	private List<Input> inputs = Collections.emptyList();
+	private int indexOfNextInput = 0;
+	private Input currentInput;
+	private ByteBuffer currentBytes;
+	private boolean endOfCurrentInput = false;
+	private boolean fetching = false;
+	private Throttle throttle;
+	private long numberOfReadCalls = 0;
+	private long consumedBytes = 0;
+
+	/**
+	 * Replaces the texts that are provided by this stream. The current text
+	 * and the texts that have not been read yet are closed.
+	 *
+	 * @param inputs the new texts.
+	 * @throws IOException if one of the old texts cannot be closed.
+	 */
+	public synchronized void provide(List<? extends Input> inputs)
+		throws IOException {
+		try {
+			closeRemainingInputs();
+		} finally {
+			this.inputs = new ArrayList<Input>(inputs);
+			indexOfNextInput = 0;
+			nextInput();
+		}
+	}
+
+	private void closeRemainingInputs() throws IOException {
+		IOException failure = null;
+		try {
+			closeCurrentInput();
+		} catch (IOException e) {
+			failure = e;
+		}
+		while (indexOfNextInput < inputs.size())
+			try {
+				inputs.get(indexOfNextInput++).close();
+			} catch (IOException e) {
+				if (failure == null)
+					failure = e;
+			}
+		if (failure != null)
+			throw failure;
+	}
+
+	/**
+	 * Sets the {@code Throttle} that controls the delivery of the bytes.
+	 *
+	 * @param throttle the {@code Throttle} or {@code null} if all bytes are
+	 *                 available immediately.
+	 */
+	public synchronized void setThrottle(Throttle throttle) {
+		this.throttle = throttle;
+	}
+
+	/**
+	 * Returns the number of calls of {@link #read()},
+	 * {@link #read(byte[], int, int)} and {@link #read(ByteBuffer)}.
+	 *
+	 * @return the number of read calls.
+	 */
+	public synchronized long getNumberOfReadCalls() {
+		return numberOfReadCalls;
+	}
+
+	/**
+	 * Returns the number of bytes that have been read or skipped.
+	 *
+	 * @return the number of bytes that have been read or skipped.
+	 */
+	public synchronized long getConsumedBytes() {
+		return consumedBytes;
+	}
+
+	/**
+	 * Returns the number of bytes that have not been read yet.
+	 *
+	 * @return the number of bytes or {@link Input#UNKNOWN} if it is not known
+	 * for a text that has not been read to its end.
+	 */
+	public synchronized long getRemainingBytes() {
+		long remainingBytes = (currentBytes == null) ? 0 : currentBytes.remaining();
+		if (currentInput != null)
+			remainingBytes = add(remainingBytes, currentInput.getRemainingBytes());
+		for (Input input : inputs.subList(indexOfNextInput, inputs.size()))
+			remainingBytes = add(remainingBytes, input.getRemainingBytes());
+		return remainingBytes;
+	}
+
+	private long add(long remainingBytes, long otherRemainingBytes) {
+		if (remainingBytes == Input.UNKNOWN || otherRemainingBytes == Input.UNKNOWN)
+			return Input.UNKNOWN;
+		else
+			return remainingBytes + otherRemainingBytes;
+	}
+
+	@Override
+	public int read() throws IOException {
+		countReadCall();
+		while (true) {
+			fetchBytes();
+			synchronized (this) {
+				ByteBuffer bytes = awaitCurrentBytes(1);
+				if (bytes == NO_BYTES_YET)
+					continue;
+				else if (bytes == null)
+					return endOfText();
+				consumed(1);
+				return bytes.get() & 0xff;
+			}
+		}
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		countReadCall();
+		if (off < 0 || len < 0 || len > b.length - off)
+			throw new IndexOutOfBoundsException();
+		else if (len == 0)
+			return 0;
+		while (true) {
+			fetchBytes();
+			synchronized (this) {
+				ByteBuffer bytes = awaitCurrentBytes(len);
+				if (bytes == NO_BYTES_YET)
+					continue;
+				else if (bytes == null)
+					return endOfText();
+				int n = Math.min(allowedBytes(len), bytes.remaining());
+				bytes.get(b, off, n);
+				consumed(n);
+				return n;
+			}
+		}
+	}
+
+	public int read(ByteBuffer dst) throws IOException {
+		countReadCall();
+		if (!dst.hasRemaining())
+			return 0;
+		while (true) {
+			fetchBytes();
+			synchronized (this) {
+				ByteBuffer bytes = awaitCurrentBytes(dst.remaining());
+				if (bytes == NO_BYTES_YET)
+					continue;
+				else if (bytes == null)
+					return endOfText();
+				int n = Math.min(allowedBytes(dst.remaining()), bytes.remaining());
+				ByteBuffer transferredBytes = bytes.duplicate();
+				transferredBytes.limit(transferredBytes.position() + n);
+				dst.put(transferredBytes);
+				bytes.position(bytes.position() + n);
+				consumed(n);
+				return n;
+			}
+		}
+	}
+
+	private synchronized void countReadCall() {
+		++numberOfReadCalls;
+	}
+
+	/**
+	 * Returns {@code true}, because {@code System.in} cannot be closed.
+	 *
+	 * @return {@code true}.
+	 */
+	public boolean isOpen() {
+		return true;
+	}
+
+	@Override
+	public synchronized int available() {
+		if (currentBytes == null)
+			return 0;
+		else if (throttle == null)
+			return currentBytes.remaining();
+		else
+			return Math.min(currentBytes.remaining(), throttle.available());
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = 0;
+		while (skipped < n) {
+			fetchBytes();
+			synchronized (this) {
+				int requestedBytes = (int) Math.min(n - skipped, Integer.MAX_VALUE);
+				ByteBuffer bytes = awaitCurrentBytes(requestedBytes);
+				if (bytes == NO_BYTES_YET)
+					continue;
+				else if (bytes == null)
+					break;
+				int step = Math.min(allowedBytes(requestedBytes), bytes.remaining());
+				bytes.position(bytes.position() + step);
+				consumed(step);
+				skipped += step;
+			}
+		}
+		return skipped;
+	}
+
+	/**
+	 * Fetches the next bytes of the current text if the current bytes have
+	 * been read. It must be called without holding the lock of this stream,
+	 * because the text may block. The bytes are dropped if the texts have
+	 * been replaced meanwhile.
+	 */
+	private void fetchBytes() throws IOException {
+		Input input;
+		synchronized (this) {
+			while (fetching)
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException(
+						"Interrupted while waiting for input.");
+				}
+			if (currentBytes() != NO_BYTES_YET)
+				return;
+			input = currentInput;
+			fetching = true;
+		}
+		ByteBuffer bytes = null;
+		boolean fetched = false;
+		try {
+			bytes = input.nextBytes();
+			fetched = true;
+		} finally {
+			synchronized (this) {
+				fetching = false;
+				notifyAll();
+				if (fetched && input == currentInput) {
+					currentBytes = bytes;
+					endOfCurrentInput = (bytes == null);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the current bytes after the {@code Throttle} allowed reading
+	 * them. The lock of this stream is released while the {@code Throttle}
+	 * waits. Therefore the current bytes are determined again afterwards.
+	 * Returns {@link #NO_BYTES_YET} if the bytes have to be fetched first.
+	 */
+	private ByteBuffer awaitCurrentBytes(int requestedBytes) throws IOException {
+		ByteBuffer bytes = currentBytes();
+		if (bytes == null || bytes == NO_BYTES_YET || throttle == null)
+			return bytes;
+		throttle.awaitBytes(requestedBytes, this);
+		return currentBytes();
+	}
+
+	private int allowedBytes(int requestedBytes) {
+		return (throttle == null) ? requestedBytes
+			: Math.min(requestedBytes, throttle.available());
+	}
+
+	private void consumed(int numberOfBytes) {
+		consumedBytes += numberOfBytes;
+		if (throttle != null)
+			throttle.consumed(numberOfBytes);
+	}
+
+	private ByteBuffer currentBytes() {
+		if (currentBytes != null && currentBytes.hasRemaining())
+			return currentBytes;
+		else if (currentInput == null || endOfCurrentInput)
+			return null;
+		else
+			return NO_BYTES_YET;
+	}
+
+	private int endOfText() throws IOException {
+		if (currentInput != null) {
+			closeCurrentInput();
+			nextInput();
+		}
+		return -1;
+	}
+
+	private void nextInput() {
+		endOfCurrentInput = false;
+		currentInput = (indexOfNextInput < inputs.size())
+			? inputs.get(indexOfNextInput++) : null;
+	}
+
+	private void closeCurrentInput() throws IOException {
+		currentBytes = null;
+		if (currentInput != null) {
+			Input input = currentInput;
+			currentInput = null;
+			input.close();
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.InterruptedIOException;
+
+/**
+ * A {@code Throttle} lets the {@link SystemInMock} behave like a slow pipe.
+ * The bytes arrive in chunks. A read returns at most the rest of the current
+ * chunk and blocks until the next chunk arrives if the current one has been
+ * consumed.
+ * <p>The {@code Throttle} is guarded by the lock of its {@code SystemInMock}.
+ * It waits for the next chunk with {@link Object#wait(long, int)} on that lock,
+ * so that other threads can use the stream (e.g. call
+ * {@code available()}) while a reader is waiting.
+ */
+public abstract class Throttle {
+	private final int chunkSize;
+	private int chunkIndex = 0;
+	private int remainingBytesOfChunk = 0;
+	private boolean waitingForChunk = false;
+	private long arrivalOfNextChunk;
+
+	/**
+	 * Creates a {@code Throttle} that delivers the bytes with a fixed rate.
+	 *
+	 * @param chunkSize      the size of a chunk.
+	 * @param bytesPerSecond the rate.
+	 * @return the {@code Throttle}.
+	 * @throws IllegalArgumentException if the chunk size or the rate is not
+	 *                                  positive.
+	 */
+	public static Throttle withRate(int chunkSize, final long bytesPerSecond) {
+		if (bytesPerSecond <= 0)
+			throw new IllegalArgumentException("The rate must be positive.");
+		return new Throttle(chunkSize) {
+			private long start;
+			private long deliveredBytes;
+
+			@Override
+			long getArrivalOfNextChunk(int chunkIndex, long now) {
+				if (chunkIndex == 0) {
+					start = now;
+					deliveredBytes = 0;
+				}
+				long arrival = start + deliveredBytes * 1000000000L / bytesPerSecond;
+				deliveredBytes += getChunkSize();
+				return arrival;
+			}
+		};
+	}
+
+	/**
+	 * Creates a {@code Throttle} that waits before each chunk. The i-th delay
+	 * is used for the i-th chunk. The last delay is used for all remaining
+	 * chunks.
+	 *
+	 * @param chunkSize    the size of a chunk.
+	 * @param delaysMillis the delays in milliseconds.
+	 * @return the {@code Throttle}.
+	 * @throws IllegalArgumentException if the chunk size is not positive or
+	 *                                  a delay is negative.
+	 */
+	public static Throttle withDelays(int chunkSize, final long... delaysMillis) {
+		for (long delay : delaysMillis)
+			if (delay < 0)
+				throw new IllegalArgumentException(
+					"The delays must not be negative.");
+		return new Throttle(chunkSize) {
+			@Override
+			long getArrivalOfNextChunk(int chunkIndex, long now) {
+				if (delaysMillis.length == 0)
+					return now;
+				long delay = delaysMillis[Math.min(chunkIndex, delaysMillis.length - 1)];
+				return now + delay * 1000000L;
+			}
+		};
+	}
+
+	private Throttle(int chunkSize) {
+		if (chunkSize <= 0)
+			throw new IllegalArgumentException("The chunk size must be positive.");
+		this.chunkSize = chunkSize;
+	}
+
+	int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Returns the number of bytes of the current chunk that have arrived but
+	 * not been read.
+	 *
+	 * @return the number of bytes that can be read without blocking.
+	 */
+	int available() {
+		return remainingBytesOfChunk;
+	}
+
+	/**
+	 * Blocks until bytes are available and returns the number of bytes that
+	 * can be read. The caller must hold the lock.
+	 *
+	 * @param requestedBytes the number of bytes the reader wants to read.
+	 * @param lock the lock that guards this {@code Throttle}. It is released
+	 *             while waiting.
+	 * @return the number of bytes that can be read.
+	 * @throws InterruptedIOException if the thread is interrupted while
+	 *                                waiting.
+	 */
+	int awaitBytes(int requestedBytes, Object lock)
+		throws InterruptedIOException {
+		while (remainingBytesOfChunk == 0)
+			awaitNextChunk(lock);
+		return Math.min(requestedBytes, remainingBytesOfChunk);
+	}
+
+	/**
+	 * Tells the {@code Throttle} that bytes have been read.
+	 *
+	 * @param numberOfBytes the number of bytes.
+	 */
+	void consumed(int numberOfBytes) {
+		remainingBytesOfChunk -= numberOfBytes;
+	}
+
+	private void awaitNextChunk(Object lock) throws InterruptedIOException {
+		if (!waitingForChunk) {
+			arrivalOfNextChunk = getArrivalOfNextChunk(chunkIndex++,
+				System.nanoTime());
+			waitingForChunk = true;
+		}
+		long delay = arrivalOfNextChunk - System.nanoTime();
+		if (delay > 0)
+			try {
+				lock.wait(delay / 1000000L, (int) (delay % 1000000L));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for input.");
+			}
+		else {
+			waitingForChunk = false;
+			remainingBytesOfChunk = chunkSize;
+		}
+	}
+
+	abstract long getArrivalOfNextChunk(int chunkIndex, long now);
+}
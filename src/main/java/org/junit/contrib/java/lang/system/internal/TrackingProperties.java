@@ -0,0 +1,695 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.System.getProperties;
+import static java.lang.System.setProperties;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The system properties of System Rules. It is a flat table of properties
+ * that is installed once and stays in place. It logs the original values of
+ * changed properties, so that changes can be undone.
+ * <p>A {@link Scope} collects the original values of the properties that are
+ * changed while it is open. Restoring the scope writes back these values only
+ * and therefore its costs depend on the number of changed properties and not
+ * on the number of properties. Scopes can be nested.
+ * <p>The table maintains a {@link #getFingerprint() fingerprint} of its
+ * properties, which allows for checking cheaply whether it changed.
+ * <p>Changes by {@link #put(Object, Object)}, {@link #remove(Object)},
+ * {@link #putAll(Map)} and {@link #clear()} are tracked. This covers
+ * {@code System.setProperty}, {@code System.clearProperty} and loading
+ * properties. The views {@link #keySet()}, {@link #entrySet()} and
+ * {@link #values()} use these methods and therefore their changes are
+ * tracked, too. The iterators of the views iterate over a snapshot of the
+ * properties. The methods that have been added to {@code Map} by Java 8 (like
+ * {@code putIfAbsent} and {@code compute}) are not tracked, because System
+ * Rules supports Java 6.
+ * <p>An {@link Overlay} provides properties to a single thread (and optionally
+ * to the threads that it creates) only. All reads and writes of this thread
+ * use the overlay first and fall back to the shared table. Tests with
+ * different overlays can run concurrently. The enumerations of the
+ * properties like {@link #stringPropertyNames()} show the shared table only.
+ * <p>An optional {@link AccessListener} is notified of the reads and writes of
+ * the properties.
+ * <p>Clones and serialized forms are plain {@code Properties} with the
+ * properties of the shared table. They do not share any state with the
+ * {@code TrackingProperties}.
+ */
+public class TrackingProperties extends Properties {
+	private static final long serialVersionUID = 1L;
+	private static final Object ABSENT = new Object();
+
+	private final transient InheritableThreadLocal<Overlay> overlayOfThread
+		= new InheritableThreadLocal<Overlay>() {
+			@Override
+			protected Overlay childValue(Overlay parentValue) {
+				Overlay overlay = parentValue;
+				while (overlay != null && !overlay.includeSpawnedThreads)
+					overlay = overlay.parent;
+				return overlay;
+			}
+		};
+	private final transient AtomicInteger numberOfOpenOverlays
+		= new AtomicInteger();
+	private final transient ConcurrentMap<Object, LazyValue> lazyValues
+		= new ConcurrentHashMap<Object, LazyValue>();
+	private transient volatile AccessListener accessListener;
+	private transient Scope currentScope;
+	private long fingerprint = 0;
+
+	/**
+	 * Installs a {@code TrackingProperties} with the current system
+	 * properties unless it is already installed.
+	 *
+	 * @return the installed {@code TrackingProperties}.
+	 */
+	public static synchronized TrackingProperties install() {
+		Properties properties = getProperties();
+		if (properties instanceof TrackingProperties)
+			return (TrackingProperties) properties;
+		TrackingProperties trackingProperties
+			= new TrackingProperties(properties);
+		setProperties(trackingProperties);
+		return trackingProperties;
+	}
+
+	private TrackingProperties(Properties properties) {
+		for (Map.Entry<Object, Object> property : properties.entrySet())
+			putAndHash(property.getKey(), property.getValue());
+		for (String name : properties.stringPropertyNames())
+			if (!super.containsKey(name))
+				putAndHash(name, properties.getProperty(name));
+	}
+
+	/**
+	 * Opens a new scope within the current scope.
+	 *
+	 * @return the new scope.
+	 */
+	public synchronized Scope openScope() {
+		currentScope = new Scope(currentScope, null);
+		return currentScope;
+	}
+
+	/**
+	 * Opens a new scope within the current scope that tracks the specified
+	 * properties only. Changes of other properties are tracked by the
+	 * enclosing scope.
+	 *
+	 * @param properties the names of the properties.
+	 * @return the new scope.
+	 */
+	public synchronized Scope openScope(Set<?> properties) {
+		currentScope = new Scope(currentScope, properties);
+		return currentScope;
+	}
+
+	/**
+	 * Opens a new overlay for the current thread within its current overlay.
+	 *
+	 * @param includeSpawnedThreads whether threads that are created by the
+	 *                              current thread use the overlay, too.
+	 * @return the new overlay.
+	 */
+	public Overlay openOverlay(boolean includeSpawnedThreads) {
+		Overlay overlay = new Overlay(overlayOfThread.get(),
+			includeSpawnedThreads);
+		overlayOfThread.set(overlay);
+		numberOfOpenOverlays.incrementAndGet();
+		return overlay;
+	}
+
+	/**
+	 * Sets the listener that is notified of the reads and writes of the
+	 * properties.
+	 *
+	 * @param listener the listener or {@code null} for no listener.
+	 * @return the previous listener or {@code null}.
+	 */
+	public AccessListener setAccessListener(AccessListener listener) {
+		AccessListener previousListener = accessListener;
+		accessListener = listener;
+		return previousListener;
+	}
+
+	private Overlay getOverlay() {
+		if (numberOfOpenOverlays.get() == 0)
+			return null;
+		Overlay overlay = overlayOfThread.get();
+		while (overlay != null && overlay.closed)
+			overlay = overlay.parent;
+		return overlay;
+	}
+
+	@Override
+	public String getProperty(String key) {
+		Object value = get(key);
+		return (value instanceof String) ? (String) value : null;
+	}
+
+	@Override
+	public Object get(Object key) {
+		AccessListener listener = accessListener;
+		if (listener != null)
+			listener.propertyRead(key);
+		return lookup(key);
+	}
+
+	private Object lookup(Object key) {
+		for (Overlay overlay = getOverlay(); overlay != null;
+			overlay = overlay.parent) {
+			Object value = overlay.values.get(key);
+			if (value instanceof LazyValue)
+				return resolve(overlay, key, (LazyValue) value);
+			else if (value != null)
+				return (value == ABSENT) ? null : value;
+		}
+		LazyValue lazyValue = lazyValues.get(key);
+		return (lazyValue == null) ? super.get(key) : resolve(key, lazyValue);
+	}
+
+	private Object resolve(Overlay overlay, Object key, LazyValue lazyValue) {
+		String value = lazyValue.get(key);
+		overlay.values.replace(key, lazyValue, (value == null) ? ABSENT : value);
+		return value;
+	}
+
+	private Object resolve(Object key, LazyValue lazyValue) {
+		String value = lazyValue.get(key);
+		synchronized (this) {
+			if (lazyValues.get(key) == lazyValue)
+				restoreValue(key, (value == null) ? ABSENT : value);
+		}
+		return value;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public Object put(Object key, Object value) {
+		notifyWrite(key);
+		Overlay overlay = getOverlay();
+		if (overlay == null)
+			return putShared(key, value);
+		else {
+			Object previousValue = lookup(key);
+			overlay.values.put(key, value);
+			return previousValue;
+		}
+	}
+
+	private synchronized Object putShared(Object key, Object value) {
+		track(key);
+		return putAndHash(key, value);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		notifyWrite(key);
+		Overlay overlay = getOverlay();
+		if (overlay == null)
+			return removeShared(key);
+		else {
+			Object previousValue = lookup(key);
+			overlay.values.put(key, ABSENT);
+			return previousValue;
+		}
+	}
+
+	private synchronized Object removeShared(Object key) {
+		track(key);
+		return removeAndHash(key);
+	}
+
+	private void notifyWrite(Object key) {
+		AccessListener listener = accessListener;
+		if (listener != null)
+			listener.propertyWritten(key);
+	}
+
+	@Override
+	public Set<Object> keySet() {
+		return new AbstractSet<Object>() {
+			@Override
+			public Iterator<Object> iterator() {
+				return new SnapshotIterator<Object>() {
+					@Override
+					Object element(Map.Entry<Object, Object> property) {
+						return property.getKey();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return TrackingProperties.super.size();
+			}
+
+			@Override
+			public boolean contains(Object key) {
+				return TrackingProperties.super.containsKey(key);
+			}
+
+			@Override
+			public boolean remove(Object key) {
+				return TrackingProperties.this.remove(key) != null;
+			}
+		};
+	}
+
+	@Override
+	public Set<Map.Entry<Object, Object>> entrySet() {
+		return new AbstractSet<Map.Entry<Object, Object>>() {
+			@Override
+			public Iterator<Map.Entry<Object, Object>> iterator() {
+				return new SnapshotIterator<Map.Entry<Object, Object>>() {
+					@Override
+					Map.Entry<Object, Object> element(
+							Map.Entry<Object, Object> property) {
+						return property;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return TrackingProperties.super.size();
+			}
+		};
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return new AbstractCollection<Object>() {
+			@Override
+			public Iterator<Object> iterator() {
+				return new SnapshotIterator<Object>() {
+					@Override
+					Object element(Map.Entry<Object, Object> property) {
+						return property.getValue();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return TrackingProperties.super.size();
+			}
+		};
+	}
+
+	private synchronized List<Map.Entry<Object, Object>> snapshot() {
+		List<Map.Entry<Object, Object>> properties
+			= new ArrayList<Map.Entry<Object, Object>>();
+		for (Map.Entry<Object, Object> property : super.entrySet())
+			properties.add(new TrackedEntry(property.getKey(),
+				property.getValue()));
+		return properties;
+	}
+
+	/**
+	 * Sets multiple properties at once. The shared table is locked once for
+	 * all properties.
+	 * <p>The value of a property is either a {@code String} or a
+	 * {@code Callable<String>}. A {@code Callable} is called when the
+	 * property is read for the first time and its value replaces the
+	 * {@code Callable}. The property is removed if the value is
+	 * {@code null}. Until then the {@code Callable} is kept apart from the
+	 * table and the property is not visible to the enumerations and views of
+	 * the properties like {@link #stringPropertyNames()} or
+	 * {@link #entrySet()}.
+	 *
+	 * @param properties the new values of the properties. A property is
+	 *                   removed if its value is {@code null}.
+	 */
+	public synchronized void setAll(Map<String, ?> properties) {
+		for (Map.Entry<String, ?> property : properties.entrySet()) {
+			Object value = property.getValue();
+			if (value == null)
+				remove(property.getKey());
+			else if (value instanceof Callable)
+				putLazy(property.getKey(), new LazyValue((Callable<?>) value));
+			else
+				put(property.getKey(), value);
+		}
+	}
+
+	private void putLazy(Object key, LazyValue value) {
+		Overlay overlay = getOverlay();
+		if (overlay == null) {
+			track(key);
+			restoreValue(key, value);
+		} else
+			overlay.values.put(key, value);
+	}
+
+	@Override
+	public void putAll(Map<?, ?> t) {
+		for (Map.Entry<?, ?> entry : t.entrySet())
+			put(entry.getKey(), entry.getValue());
+	}
+
+	@Override
+	public void clear() {
+		Overlay overlay = getOverlay();
+		if (overlay == null)
+			clearShared();
+		else {
+			for (Object key : new ArrayList<Object>(keySet()))
+				overlay.values.put(key, ABSENT);
+			for (Object key : lazyValues.keySet())
+				overlay.values.put(key, ABSENT);
+			for (Overlay o = overlay; o != null; o = o.parent)
+				for (Object key : o.values.keySet())
+					overlay.values.put(key, ABSENT);
+		}
+	}
+
+	private synchronized void clearShared() {
+		if (currentScope != null) {
+			for (Object key : new ArrayList<Object>(keySet()))
+				track(key);
+			for (Object key : lazyValues.keySet())
+				track(key);
+		}
+		lazyValues.clear();
+		super.clear();
+		fingerprint = 0;
+	}
+
+	private void track(Object key) {
+		if (currentScope != null)
+			currentScope.track(key);
+	}
+
+	private void restoreValue(Object key, Object value) {
+		if (value == ABSENT)
+			removeAndHash(key);
+		else if (value instanceof LazyValue) {
+			removeAndHash(key);
+			lazyValues.put(key, (LazyValue) value);
+		} else
+			putAndHash(key, value);
+	}
+
+	/**
+	 * Returns the value of the shared table without resolving a lazy value.
+	 */
+	private Object getShared(Object key) {
+		Object value = lazyValues.get(key);
+		if (value == null)
+			value = super.get(key);
+		return (value == null) ? ABSENT : value;
+	}
+
+	private Object putAndHash(Object key, Object value) {
+		lazyValues.remove(key);
+		Object previousValue = super.put(key, value);
+		fingerprint ^= hash(key, previousValue) ^ hash(key, value);
+		return previousValue;
+	}
+
+	private Object removeAndHash(Object key) {
+		lazyValues.remove(key);
+		Object previousValue = super.remove(key);
+		fingerprint ^= hash(key, previousValue);
+		return previousValue;
+	}
+
+	private static long hash(Object key, Object value) {
+		if (value == null)
+			return 0;
+		long hash = ((long) key.hashCode() << 32) ^ value.hashCode();
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb53a1afe2c6bL;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * Returns a plain {@code Properties} with the properties of the shared
+	 * table. Lazy values that have not been read yet are left out.
+	 *
+	 * @return the copy of the shared table.
+	 */
+	@Override
+	public synchronized Object clone() {
+		Properties properties = new Properties();
+		for (Map.Entry<Object, Object> property : super.entrySet())
+			properties.put(property.getKey(), property.getValue());
+		return properties;
+	}
+
+	private Object writeReplace() {
+		return clone();
+	}
+
+	/**
+	 * Returns a fingerprint of the shared table. It is the XOR of the
+	 * hashes of all properties and it is updated with every change.
+	 * Therefore it is available immediately. Equal tables have the same
+	 * fingerprint.
+	 *
+	 * @return the fingerprint of the shared table.
+	 */
+	public synchronized long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * The original values of the properties that have been changed since the
+	 * scope has been opened.
+	 */
+	public class Scope {
+		private final Scope parent;
+		private final Set<?> trackedProperties;
+		private final Map<Object, Object> originalValues
+			= new LinkedHashMap<Object, Object>();
+		private boolean closed = false;
+
+		private Scope(Scope parent, Set<?> trackedProperties) {
+			this.parent = parent;
+			this.trackedProperties = trackedProperties;
+		}
+
+		private void track(Object key) {
+			addOriginalValue(key, getShared(key));
+		}
+
+		/**
+		 * Adds the original value of a property unless the scope already
+		 * has one. A property that the scope does not track is passed to
+		 * the enclosing scope.
+		 */
+		private void addOriginalValue(Object key, Object value) {
+			if (trackedProperties != null && !trackedProperties.contains(key)) {
+				if (parent != null)
+					parent.addOriginalValue(key, value);
+			} else if (!originalValues.containsKey(key))
+				originalValues.put(key, value);
+		}
+
+		/**
+		 * Restores the original values of the properties that have been
+		 * changed since the scope has been opened and closes the scope.
+		 * Nested scopes that are still open are restored, too.
+		 */
+		public void restore() {
+			synchronized (TrackingProperties.this) {
+				if (closed)
+					return;
+				while (currentScope != this)
+					currentScope.restore();
+				for (Map.Entry<Object, Object> original
+					: originalValues.entrySet())
+					restoreValue(original.getKey(), original.getValue());
+				close();
+			}
+		}
+
+		/**
+		 * Returns the properties that have a different value than at the
+		 * time when the scope has been opened.
+		 *
+		 * @return the names of the properties.
+		 */
+		public Set<Object> getChangedProperties() {
+			synchronized (TrackingProperties.this) {
+				Set<Object> changedProperties = new LinkedHashSet<Object>();
+				for (Map.Entry<Object, Object> original
+					: originalValues.entrySet()) {
+					if (!original.getValue().equals(getShared(original.getKey())))
+						changedProperties.add(original.getKey());
+				}
+				return changedProperties;
+			}
+		}
+
+		/**
+		 * Keeps the changes and closes the scope. The enclosing scope is
+		 * able to restore them.
+		 */
+		public void commit() {
+			synchronized (TrackingProperties.this) {
+				if (closed)
+					return;
+				while (currentScope != this)
+					currentScope.commit();
+				if (parent != null)
+					for (Map.Entry<Object, Object> original
+						: originalValues.entrySet())
+						parent.addOriginalValue(original.getKey(),
+							original.getValue());
+				close();
+			}
+		}
+
+		private void close() {
+			closed = true;
+			currentScope = parent;
+		}
+	}
+
+	/**
+	 * The properties of a single thread and optionally of the threads that
+	 * it creates. Properties that have been removed are marked as absent.
+	 */
+	public class Overlay {
+		private final Overlay parent;
+		private final boolean includeSpawnedThreads;
+		private final ConcurrentMap<Object, Object> values
+			= new ConcurrentHashMap<Object, Object>();
+		private volatile boolean closed = false;
+
+		private Overlay(Overlay parent, boolean includeSpawnedThreads) {
+			this.parent = parent;
+			this.includeSpawnedThreads = includeSpawnedThreads;
+		}
+
+		/**
+		 * Discards the overlay's properties. The thread that opened the
+		 * overlay uses the enclosing overlay again.
+		 */
+		public synchronized void close() {
+			if (closed)
+				return;
+			closed = true;
+			if (overlayOfThread.get() == this)
+				overlayOfThread.set(parent);
+			numberOfOpenOverlays.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Is notified of the reads and writes of the properties. It is called by
+	 * the thread that accesses a property.
+	 */
+	public interface AccessListener {
+		/**
+		 * Is called when a property is read.
+		 *
+		 * @param key the name of the property.
+		 */
+		void propertyRead(Object key);
+
+		/**
+		 * Is called when a property is set or removed.
+		 *
+		 * @param key the name of the property.
+		 */
+		void propertyWritten(Object key);
+	}
+
+	/**
+	 * An iterator over a snapshot of the shared table. Removing an element
+	 * removes the property by {@link TrackingProperties#remove(Object)}.
+	 */
+	private abstract class SnapshotIterator<E> implements Iterator<E> {
+		private final Iterator<Map.Entry<Object, Object>> properties
+			= snapshot().iterator();
+		private Map.Entry<Object, Object> current;
+
+		public boolean hasNext() {
+			return properties.hasNext();
+		}
+
+		public E next() {
+			current = properties.next();
+			return element(current);
+		}
+
+		public void remove() {
+			if (current == null)
+				throw new IllegalStateException();
+			TrackingProperties.this.remove(current.getKey());
+			current = null;
+		}
+
+		abstract E element(Map.Entry<Object, Object> property);
+	}
+
+	/**
+	 * A property of a snapshot. Setting its value sets the property by
+	 * {@link TrackingProperties#put(Object, Object)}.
+	 */
+	private class TrackedEntry extends SimpleEntry<Object, Object> {
+		TrackedEntry(Object key, Object value) {
+			super(key, value);
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			put(getKey(), value);
+			return super.setValue(value);
+		}
+	}
+
+	/**
+	 * The value of a property that is computed when it is read for the first
+	 * time.
+	 */
+	private static class LazyValue {
+		private final Callable<?> callable;
+		private boolean computed = false;
+		private String value;
+
+		LazyValue(Callable<?> callable) {
+			this.callable = callable;
+		}
+
+		synchronized String get(Object key) {
+			if (!computed) {
+				Object result;
+				try {
+					result = callable.call();
+				} catch (Exception e) {
+					throw new IllegalStateException("Cannot compute the value"
+						+ " of the system property " + key + ".", e);
+				}
+				value = (result == null) ? null : result.toString();
+				computed = true;
+			}
+			return value;
+		}
+	}
+}
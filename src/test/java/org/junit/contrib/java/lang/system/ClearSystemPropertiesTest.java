@@ -49,6 +49,22 @@ public class ClearSystemPropertiesTest {
 		assertThat(getProperty("another property"), is("dummy value"));
 	}
 
+	@Test
+	public void clearsAndRestoresPropertiesWithPrefix() throws Throwable {
+		setProperty(SECOND_ARBITRARY_NAME, ARBITRARY_VALUE);
+		ClearSystemProperties.withPrefix("second arbitrary")
+			.apply(new VerifyValueIsCleared(), null).evaluate();
+		assertThat(getProperty(SECOND_ARBITRARY_NAME),
+			is(equalTo(ARBITRARY_VALUE)));
+	}
+
+	@Test
+	public void clearsPropertiesThatMatchGlob() throws Throwable {
+		setProperty(SECOND_ARBITRARY_NAME, ARBITRARY_VALUE);
+		ClearSystemProperties.matching("sec?nd * property")
+			.apply(new VerifyValueIsCleared(), null).evaluate();
+	}
+
 	private void applyRuleToStatement(Statement statement) throws Throwable {
 		rule.apply(statement, null).evaluate();
 	}
@@ -0,0 +1,44 @@
+package org.junit.contrib.java.lang.system;
+
+import static java.lang.System.getenv;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runners.model.Statement;
+
+public class EnvironmentVariablesTest {
+	private static final String ARBITRARY_NAME = "SYSTEM_RULES_ARBITRARY_NAME";
+	private static final String ANOTHER_NAME = "SYSTEM_RULES_ANOTHER_NAME";
+
+	@Test
+	public void providesVariablesOfRuleAndVariablesSetDuringTest() throws Throwable {
+		final EnvironmentVariables rule = new EnvironmentVariables()
+			.set(ARBITRARY_NAME, "arbitrary value");
+		rule.apply(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				rule.set(ANOTHER_NAME, "another value");
+				assertThat(getenv(ARBITRARY_NAME), is(equalTo("arbitrary value")));
+				assertThat(getenv(ANOTHER_NAME), is(equalTo("another value")));
+				assertThat(getenv().get(ANOTHER_NAME), is(equalTo("another value")));
+			}
+		}, null).evaluate();
+	}
+
+	@Test
+	public void restoresVariables() throws Throwable {
+		final EnvironmentVariables rule = new EnvironmentVariables()
+			.set(ARBITRARY_NAME, "arbitrary value");
+		rule.apply(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				rule.set(ANOTHER_NAME, "another value");
+			}
+		}, null).evaluate();
+		assertThat(getenv(ARBITRARY_NAME), is(nullValue()));
+		assertThat(getenv(ANOTHER_NAME), is(nullValue()));
+	}
+}
@@ -1,10 +1,13 @@
 package org.junit.contrib.java.lang.system;
 
 import static java.lang.System.clearProperty;
+import static java.lang.System.getProperties;
 import static java.lang.System.getProperty;
 import static java.lang.System.setProperty;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
 import static org.apache.commons.io.IOUtils.copy;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
@@ -14,6 +17,10 @@ import static org.junit.contrib.java.lang.system.ProvideSystemProperty.fromResou
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -82,6 +89,16 @@ public class ProvideSystemPropertyTest {
 		evaluateAssertPropertyWithNameAndValue(ARBITRARY_NAME, ARBITRARY_VALUE);
 	}
 
+	@Test
+	public void providePropertyFromModifiedFile() throws Throwable {
+		File file = temporaryFolder.newFile();
+		writeStringToFile(file, "arbitrary\\ property=arbitrary value");
+		fromFile(file.getAbsolutePath());
+		writeStringToFile(file, "arbitrary\\ property=modified value");
+		rule = fromFile(file.getAbsolutePath());
+		evaluateAssertPropertyWithNameAndValue(ARBITRARY_NAME, "modified value");
+	}
+
 	@Test
 	public void restoresMultipleProperties() throws Throwable {
 		setProperty(ANOTHER_PROPERTY, ARBITRARY_VALUE);
@@ -106,6 +123,139 @@ public class ProvideSystemPropertyTest {
 			is(equalTo("value before executing the rule")));
 	}
 
+	@Test
+	public void providesPropertyToTestThreadOnlyIfIsolatedPerThread()
+		throws Throwable {
+		setProperty(ARBITRARY_NAME, A_DIFFERENT_VALUE);
+		rule = new ProvideSystemProperty(ARBITRARY_NAME, ARBITRARY_VALUE)
+			.isolatedPerThread();
+		final AtomicReference<String> valueOfOtherThread
+			= new AtomicReference<String>();
+		evaluateRuleForStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				Thread otherThread = new Thread() {
+					@Override
+					public void run() {
+						valueOfOtherThread.set(getProperty(ARBITRARY_NAME));
+					}
+				};
+				otherThread.start();
+				otherThread.join();
+				assertThat(getProperty(ARBITRARY_NAME), is(equalTo(ARBITRARY_VALUE)));
+			}
+		});
+		assertThat(valueOfOtherThread.get(), is(equalTo(A_DIFFERENT_VALUE)));
+		assertThat(getProperty(ARBITRARY_NAME), is(equalTo(A_DIFFERENT_VALUE)));
+	}
+
+	@Test
+	public void nestedRuleOverlaysPropertiesOfOuterRule() throws Throwable {
+		rule = new ProvideSystemProperty(ARBITRARY_NAME, ARBITRARY_VALUE)
+			.and(ANOTHER_PROPERTY, ARBITRARY_VALUE);
+		evaluateRuleForStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				new ProvideSystemProperty(ANOTHER_PROPERTY, A_DIFFERENT_VALUE)
+					.apply(new AssertValue(ANOTHER_PROPERTY, A_DIFFERENT_VALUE),
+						NO_DESCRIPTION).evaluate();
+				assertThat(getProperty(ARBITRARY_NAME), is(equalTo(ARBITRARY_VALUE)));
+				assertThat(getProperty(ANOTHER_PROPERTY), is(equalTo(ARBITRARY_VALUE)));
+			}
+		});
+	}
+
+	@Test
+	public void computesLazyValueOnceWhenItIsRead() throws Throwable {
+		final AtomicInteger numberOfCalls = new AtomicInteger();
+		rule = new ProvideSystemProperty(ARBITRARY_NAME, ARBITRARY_VALUE)
+			.andLazy(ANOTHER_PROPERTY, new Callable<String>() {
+				public String call() {
+					numberOfCalls.incrementAndGet();
+					return A_DIFFERENT_VALUE;
+				}
+			});
+		evaluateRuleForStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				assertThat(numberOfCalls.get(), is(0));
+				assertThat(getProperty(ANOTHER_PROPERTY), is(equalTo(A_DIFFERENT_VALUE)));
+				assertThat(getProperty(ANOTHER_PROPERTY), is(equalTo(A_DIFFERENT_VALUE)));
+				assertThat(numberOfCalls.get(), is(1));
+			}
+		});
+	}
+
+	@Test
+	public void lazyValueIsNotInEntriesBeforeItIsRead() throws Throwable {
+		rule = new ProvideSystemProperty(ARBITRARY_NAME, ARBITRARY_VALUE)
+			.andLazy(ANOTHER_PROPERTY, new Callable<String>() {
+				public String call() {
+					return A_DIFFERENT_VALUE;
+				}
+			});
+		evaluateRuleForStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				for (Object value : getProperties().values())
+					assertThat(value, is(instanceOf(String.class)));
+				assertThat(getProperties().containsValue(A_DIFFERENT_VALUE),
+					is(false));
+			}
+		});
+	}
+
+	@Test
+	public void cloneDoesNotAffectPendingLazyValue() throws Throwable {
+		rule = new ProvideSystemProperty(ARBITRARY_NAME, ARBITRARY_VALUE)
+			.andLazy(ANOTHER_PROPERTY, new Callable<String>() {
+				public String call() {
+					return A_DIFFERENT_VALUE;
+				}
+			});
+		evaluateRuleForStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				Properties clone = (Properties) getProperties().clone();
+				clone.getProperty(ANOTHER_PROPERTY);
+				clone.clear();
+				assertThat(getProperty(ANOTHER_PROPERTY), is(equalTo(A_DIFFERENT_VALUE)));
+				assertThat(getProperty(ARBITRARY_NAME), is(equalTo(ARBITRARY_VALUE)));
+			}
+		});
+	}
+
+	@Test
+	public void propertyIsAbsentIfLazyValueIsNull() throws Throwable {
+		rule = new ProvideSystemProperty(ARBITRARY_NAME, ARBITRARY_VALUE)
+			.andLazy(ANOTHER_PROPERTY, new Callable<String>() {
+				public String call() {
+					return null;
+				}
+			});
+		evaluateRuleForStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				assertThat(getProperty(ANOTHER_PROPERTY), is(nullValue()));
+				assertThat(getProperties().containsKey(ANOTHER_PROPERTY),
+					is(false));
+			}
+		});
+	}
+
+	@Test
+	public void doesNotRestorePropertiesThatAreNotProvided() throws Throwable {
+		clearProperty(ANOTHER_PROPERTY);
+		rule = new ProvideSystemProperty(ARBITRARY_NAME, ARBITRARY_VALUE);
+		evaluateRuleForStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				setProperty(ANOTHER_PROPERTY, A_DIFFERENT_VALUE);
+			}
+		});
+		assertThat(getProperty(ANOTHER_PROPERTY), is(equalTo(A_DIFFERENT_VALUE)));
+	}
+
 	private void evaluateStatementWithArbitraryValue() throws Throwable {
 		rule = new ProvideSystemProperty(ARBITRARY_NAME, ARBITRARY_VALUE);
 		evaluateAssertPropertyWithNameAndValue(ARBITRARY_NAME, ARBITRARY_VALUE);
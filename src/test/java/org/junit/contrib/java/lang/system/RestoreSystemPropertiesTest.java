@@ -1,6 +1,7 @@
 package org.junit.contrib.java.lang.system;
 
 import static java.lang.System.clearProperty;
+import static java.lang.System.getProperties;
 import static java.lang.System.getProperty;
 import static java.lang.System.setProperty;
 import static org.hamcrest.Matchers.equalTo;
@@ -56,6 +57,48 @@ public class RestoreSystemPropertiesTest {
 		evaluateRuleThatWrapsStatement(verifyProperty);
 	}
 
+	@Test
+	public void providesPropertiesInFlatTable() throws Throwable {
+		setPropertyValue("dummy value");
+		Statement verifyProperty = new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				assertThat(getProperties().containsKey(PROPERTY_KEY), is(true));
+			}
+		};
+		evaluateRuleThatWrapsStatement(verifyProperty);
+	}
+
+	@Test
+	public void restoresPropertyChangedByNestedRule() throws Throwable {
+		setPropertyValue("dummy value");
+		Statement nestedRule = new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				setPropertyValue("value of outer rule");
+				new RestoreSystemProperties().apply(
+					new SetValueOfProperty(PROPERTY_KEY), NO_DESCRIPTION)
+					.evaluate();
+				assertThat(getPropertyValue(), is(equalTo("value of outer rule")));
+			}
+		};
+		evaluateRuleThatWrapsStatement(nestedRule);
+		assertThat(getPropertyValue(), is(equalTo("dummy value")));
+	}
+
+	@Test
+	public void restoresPropertyThatIsRemovedByKeySet() throws Throwable {
+		setPropertyValue("dummy value");
+		Statement removeByKeySet = new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				getProperties().keySet().remove(PROPERTY_KEY);
+			}
+		};
+		evaluateRuleThatWrapsStatement(removeByKeySet);
+		assertThat(getPropertyValue(), is(equalTo("dummy value")));
+	}
+
 	private String getPropertyValue() {
 		return getProperty("dummy property");
 	}
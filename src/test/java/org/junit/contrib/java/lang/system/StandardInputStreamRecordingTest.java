@@ -0,0 +1,125 @@
+package org.junit.contrib.java.lang.system;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.contrib.java.lang.system.TextFromStandardInputStream.emptyStandardInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Scanner;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runners.model.Statement;
+
+public class StandardInputStreamRecordingTest {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void recordedSessionCanBeReplayed() throws Throwable {
+		final File file = folder.newFile();
+		record(file, "first line\nsecond line\n");
+		final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+		systemInMock.apply(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.replay(file, false);
+				Scanner scanner = new Scanner(System.in);
+				assertThat(scanner.nextLine(), is(equalTo("first line")));
+				assertThat(scanner.nextLine(), is(equalTo("second line")));
+			}
+		}, null).evaluate();
+	}
+
+	@Test
+	public void timeBeforeFirstReadIsNotReplayed() throws Throwable {
+		final File file = folder.newFile();
+		record(file, "text", 500);
+		final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+		systemInMock.apply(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.replay(file, true);
+				long start = System.currentTimeMillis();
+				System.in.read();
+				assertThat(System.currentTimeMillis() - start,
+					is(lessThan(400L)));
+			}
+		}, null).evaluate();
+	}
+
+	@Test
+	public void replaysDelayBetweenReadsWithOriginalTiming() throws Throwable {
+		final File file = folder.newFile();
+		recordWithStatement(file, "first\nsecond\n", new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				System.in.read(new byte[6]);
+				Thread.sleep(300);
+				System.in.read(new byte[7]);
+			}
+		});
+		final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+		systemInMock.apply(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.replay(file, true);
+				System.in.read(new byte[6]);
+				long start = System.currentTimeMillis();
+				System.in.read(new byte[7]);
+				assertThat(System.currentTimeMillis() - start,
+					is(greaterThanOrEqualTo(250L)));
+			}
+		}, null).evaluate();
+	}
+
+	@Test
+	public void coalescesSingleByteReads() throws Throwable {
+		File file = folder.newFile();
+		String text = new String(new char[1000]).replace('\0', 'x');
+		recordWithStatement(file, text, new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				while (System.in.read() != -1) ;
+			}
+		});
+		assertThat(file.length(), is(lessThan(2L * text.length())));
+	}
+
+	private void record(File file, String text) throws Throwable {
+		record(file, text, 0);
+	}
+
+	private void record(File file, String text, final long delayBeforeRead)
+			throws Throwable {
+		recordWithStatement(file, text, new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				Thread.sleep(delayBeforeRead);
+				byte[] buffer = new byte[4];
+				while (System.in.read(buffer) != -1) ;
+			}
+		});
+	}
+
+	private void recordWithStatement(File file, String text,
+			Statement statement) throws Throwable {
+		InputStream originalIn = System.in;
+		System.setIn(new ByteArrayInputStream(text.getBytes()));
+		try {
+			new StandardInputStreamRecording(file).apply(statement, null)
+				.evaluate();
+		} finally {
+			System.setIn(originalIn);
+		}
+	}
+}
@@ -3,19 +3,27 @@ package org.junit.contrib.java.lang.system;
 import static com.github.stefanbirkner.fishbowl.Fishbowl.exceptionThrownBy;
 import static java.lang.System.out;
 import static java.lang.System.setOut;
+import static org.apache.commons.io.FileUtils.readFileToString;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.PrintStream;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.rules.TestRule;
+import org.junit.runner.Description;
 import org.junit.runners.model.Statement;
 
 public class StandardOutputStreamLogTest {
 	private static final String ARBITRARY_TEXT = "arbitrary text";
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	@Test
 	public void logWriting() throws Throwable {
 		StandardOutputStreamLog log = createLogWithoutSpecificMode();
@@ -67,6 +75,66 @@ public class StandardOutputStreamLogTest {
 		assertThat(log.getLog(), is(equalTo(ARBITRARY_TEXT)));
 	}
 
+	@Test
+	public void providesLogAndClearsIt() throws Throwable {
+		final StandardOutputStreamLog log = createLogWithoutSpecificMode();
+		executeRuleWithStatement(log, new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				out.print("first text");
+				assertThat(log.getAndClear(), is(equalTo("first text")));
+				out.print(ARBITRARY_TEXT);
+			}
+		});
+		assertThat(log.getLog(), is(equalTo(ARBITRARY_TEXT)));
+	}
+
+	@Test
+	public void writesLogToFileForLogAndWriteToFileMode() throws Throwable {
+		File directory = temporaryFolder.newFolder();
+		StandardOutputStreamLog log = new StandardOutputStreamLog(
+			LogMode.LOG_AND_WRITE_TO_FILE, directory);
+		Description description = Description.createTestDescription(getClass(),
+			"arbitraryTest");
+		log.apply(new WriteTextToStandardOutputStream(), description).evaluate();
+		File[] files = directory.listFiles();
+		assertThat(files, is(arrayWithSize(1)));
+		assertThat(files[0].getName(), endsWith(".out"));
+		assertThat(readFileToString(files[0], "UTF-8"), is(equalTo(ARBITRARY_TEXT)));
+	}
+
+	@Test
+	public void providesFieldsOfJsonLines() throws Throwable {
+		final StandardOutputStreamLog log = new StandardOutputStreamLog(LogMode.LOG_ONLY);
+		executeRuleWithStatement(log, new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				out.println("{\"user\":{\"name\":\"first\"}}");
+				out.println("{\"user\":{\"name\":\"second\"}}");
+			}
+		});
+		assertThat(log.getJsonLines().getField(1, "user.name"),
+			is(equalTo((Object) "second")));
+	}
+
+	@Test
+	public void failsForJsonLineThatDoesNotExist() throws Throwable {
+		final StandardOutputStreamLog log = new StandardOutputStreamLog(LogMode.LOG_ONLY);
+		executeRuleWithStatement(log, new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				out.println("{}");
+			}
+		});
+		Throwable exception = exceptionThrownBy(
+			new com.github.stefanbirkner.fishbowl.Statement() {
+				public void evaluate() throws Throwable {
+					log.getJsonLines().get(1000000);
+				}
+			});
+		assertThat(exception, is(instanceOf(IndexOutOfBoundsException.class)));
+	}
+
 	@Test
 	public void cannotBeCreatedWithoutLogMode() {
 		Throwable exception = exceptionThrownBy(
@@ -0,0 +1,63 @@
+package org.junit.contrib.java.lang.system;
+
+import static java.lang.System.getProperties;
+import static java.lang.System.getProperty;
+import static java.lang.System.setProperty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Properties;
+
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.internal.TrackingProperties;
+import org.junit.runners.model.Statement;
+
+public class SystemPropertiesAccessLogTest {
+	private static final String ARBITRARY_NAME = "arbitrary property";
+
+	private final SystemPropertiesAccessLog rule = new SystemPropertiesAccessLog();
+
+	@Test
+	public void countsReadsAndWrites() throws Throwable {
+		rule.apply(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				setProperty(ARBITRARY_NAME, "arbitrary value");
+				getProperty(ARBITRARY_NAME);
+				getProperty(ARBITRARY_NAME, "default value");
+			}
+		}, null).evaluate();
+		assertThat(rule.getNumberOfReads(ARBITRARY_NAME), is(2L));
+		assertThat(rule.getNumberOfWrites(ARBITRARY_NAME), is(1L));
+	}
+
+	@Test
+	public void hasNoAccessesBeforeTest() {
+		assertThat(rule.getNumberOfReads(ARBITRARY_NAME), is(0L));
+		assertThat(rule.getNumberOfWrites(ARBITRARY_NAME), is(0L));
+	}
+
+	@Test
+	public void restoresProperties() throws Throwable {
+		rule.apply(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				setProperty(ARBITRARY_NAME, "arbitrary value");
+			}
+		}, null).evaluate();
+		assertThat(getProperty(ARBITRARY_NAME), is(nullValue()));
+	}
+
+	@Test
+	public void countsAccessesOfInstalledProperties() throws Throwable {
+		final Properties installedProperties = TrackingProperties.install();
+		rule.apply(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				assertThat(getProperties(), is(sameInstance(installedProperties)));
+			}
+		}, null).evaluate();
+	}
+}
@@ -0,0 +1,74 @@
+package org.junit.contrib.java.lang.system;
+
+import static java.lang.System.clearProperty;
+import static java.lang.System.getProperty;
+import static java.lang.System.setProperty;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.runner.Description.createTestDescription;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+public class SystemPropertiesLeakDetectorTest {
+	private static final String ARBITRARY_NAME = "arbitrary property";
+	private static final String ANOTHER_PROPERTY = "another property";
+	private static final Description TEST = createTestDescription(
+		SystemPropertiesLeakDetectorTest.class, "arbitraryTest");
+
+	@Rule
+	public final TestRule restoreSystemProperties = new RestoreSystemProperties();
+
+	@Test
+	public void reportsLeakedProperty() {
+		SystemPropertiesLeakDetector detector = new SystemPropertiesLeakDetector();
+		detector.testStarted(TEST);
+		setProperty(ARBITRARY_NAME, "arbitrary value");
+		detector.testFinished(TEST);
+		assertThat(detector.getLeaks(), contains(
+			"Test arbitraryTest(org.junit.contrib.java.lang.system.SystemPropertiesLeakDetectorTest)"
+				+ " leaked the system properties [arbitrary property]."));
+	}
+
+	@Test
+	public void doesNotReportRestoredProperty() {
+		SystemPropertiesLeakDetector detector = new SystemPropertiesLeakDetector();
+		detector.testStarted(TEST);
+		setProperty(ARBITRARY_NAME, "arbitrary value");
+		clearProperty(ARBITRARY_NAME);
+		detector.testFinished(TEST);
+		assertThat(detector.getLeaks(), is(empty()));
+	}
+
+	@Test
+	public void restoresLeakedProperty() {
+		SystemPropertiesLeakDetector detector = new SystemPropertiesLeakDetector(true);
+		detector.testStarted(TEST);
+		setProperty(ARBITRARY_NAME, "arbitrary value");
+		detector.testFinished(TEST);
+		assertThat(getProperty(ARBITRARY_NAME), is(nullValue()));
+	}
+
+	@Test
+	public void leakedPropertyIsNotRestoredByScopeOfOtherProperty()
+			throws Throwable {
+		final SystemPropertiesLeakDetector detector = new SystemPropertiesLeakDetector();
+		new ProvideSystemProperty(ANOTHER_PROPERTY, "another value").apply(
+			new Statement() {
+				@Override
+				public void evaluate() {
+					detector.testStarted(TEST);
+					setProperty(ARBITRARY_NAME, "arbitrary value");
+					detector.testFinished(TEST);
+				}
+			}, null).evaluate();
+		assertThat(getProperty(ARBITRARY_NAME), is(equalTo("arbitrary value")));
+	}
+}
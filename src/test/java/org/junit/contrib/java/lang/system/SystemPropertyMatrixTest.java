@@ -0,0 +1,147 @@
+package org.junit.contrib.java.lang.system;
+
+import static com.github.stefanbirkner.fishbowl.Fishbowl.exceptionThrownBy;
+import static java.lang.System.getProperty;
+import static java.lang.System.setProperty;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.internal.AssumptionViolatedException;
+import org.junit.runners.model.Statement;
+
+public class SystemPropertyMatrixTest {
+	private static final String FIRST_PROPERTY = "first property";
+	private static final String SECOND_PROPERTY = "second property";
+
+	private final List<String> executedCombinations
+		= Collections.synchronizedList(new ArrayList<String>());
+
+	@Test
+	public void executesTestForEachCombination() throws Throwable {
+		SystemPropertyMatrix rule = new SystemPropertyMatrix()
+			.dimension(FIRST_PROPERTY, "a", "b")
+			.dimension(SECOND_PROPERTY, "1", null);
+		rule.apply(new RecordCombination(), null).evaluate();
+		assertThat(executedCombinations,
+			containsInAnyOrder("a 1", "b 1", "a null", "b null"));
+	}
+
+	@Test
+	public void executesCombinationsInParallel() throws Throwable {
+		SystemPropertyMatrix rule = new SystemPropertyMatrix()
+			.dimension(FIRST_PROPERTY, "a", "b")
+			.dimension(SECOND_PROPERTY, "1", null)
+			.inParallel(2);
+		rule.apply(new RecordCombination(), null).evaluate();
+		assertThat(executedCombinations,
+			containsInAnyOrder("a 1", "b 1", "a null", "b null"));
+	}
+
+	@Test
+	public void restoresProperties() throws Throwable {
+		SystemPropertyMatrix rule = new SystemPropertyMatrix()
+			.dimension(FIRST_PROPERTY, "a", "b");
+		rule.apply(new RecordCombination(), null).evaluate();
+		assertThat(getProperty(FIRST_PROPERTY), is(nullValue()));
+	}
+
+	@Test
+	public void reportsFailingCombination() {
+		final SystemPropertyMatrix rule = new SystemPropertyMatrix()
+			.dimension(FIRST_PROPERTY, "a", "b");
+		Throwable exception = exceptionThrownBy(
+			new com.github.stefanbirkner.fishbowl.Statement() {
+				public void evaluate() throws Throwable {
+					rule.apply(new Statement() {
+						@Override
+						public void evaluate() {
+							if ("b".equals(getProperty(FIRST_PROPERTY)))
+								throw new AssertionError("failure");
+						}
+					}, null).evaluate();
+				}
+			});
+		assertThat(exception.getMessage(),
+			containsString("{first property=b}"));
+	}
+
+	@Test
+	public void changesOnlyASinglePropertyBetweenCombinations()
+			throws Throwable {
+		SystemPropertyMatrix rule = new SystemPropertyMatrix()
+			.dimension(FIRST_PROPERTY, "a", "b")
+			.dimension(SECOND_PROPERTY, "1", null);
+		SystemPropertiesAccessLog accessLog = new SystemPropertiesAccessLog();
+		accessLog.apply(rule.apply(new RecordCombination(), null), null)
+			.evaluate();
+		assertThat(executedCombinations,
+			contains("a 1", "b 1", "b null", "a null"));
+		assertThat(accessLog.getNumberOfWrites(FIRST_PROPERTY), is(3L));
+		assertThat(accessLog.getNumberOfWrites(SECOND_PROPERTY), is(2L));
+	}
+
+	@Test
+	public void undoesChangesOfExecutionBeforeNextCombination()
+			throws Throwable {
+		SystemPropertyMatrix rule = new SystemPropertyMatrix()
+			.dimension(FIRST_PROPERTY, "a", "b");
+		rule.apply(new Statement() {
+			@Override
+			public void evaluate() {
+				executedCombinations.add(getProperty(SECOND_PROPERTY));
+				setProperty(SECOND_PROPERTY, "changed");
+			}
+		}, null).evaluate();
+		assertThat(executedCombinations, contains(nullValue(), nullValue()));
+	}
+
+	@Test
+	public void skipsCombinationWhoseAssumptionFails() throws Throwable {
+		SystemPropertyMatrix rule = new SystemPropertyMatrix()
+			.dimension(FIRST_PROPERTY, "a", "b");
+		rule.apply(new Statement() {
+			@Override
+			public void evaluate() {
+				assumeTrue("b".equals(getProperty(FIRST_PROPERTY)));
+			}
+		}, null).evaluate();
+	}
+
+	@Test
+	public void skipsTestIfAllCombinationsAreSkipped() {
+		final SystemPropertyMatrix rule = new SystemPropertyMatrix()
+			.dimension(FIRST_PROPERTY, "a", "b");
+		Throwable exception = exceptionThrownBy(
+			new com.github.stefanbirkner.fishbowl.Statement() {
+				public void evaluate() throws Throwable {
+					rule.apply(new Statement() {
+						@Override
+						public void evaluate() {
+							assumeTrue(false);
+						}
+					}, null).evaluate();
+				}
+			});
+		assertThat(exception,
+			is(instanceOf(AssumptionViolatedException.class)));
+	}
+
+	private class RecordCombination extends Statement {
+		@Override
+		public void evaluate() {
+			executedCombinations.add(getProperty(FIRST_PROPERTY) + " "
+				+ getProperty(SECOND_PROPERTY));
+		}
+	}
+}
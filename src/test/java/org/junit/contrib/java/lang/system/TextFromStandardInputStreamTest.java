@@ -1,16 +1,38 @@
 package org.junit.contrib.java.lang.system;
 
+import static com.github.stefanbirkner.fishbowl.Fishbowl.exceptionThrownBy;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
 import static org.junit.contrib.java.lang.system.TextFromStandardInputStream.emptyStandardInputStream;
+import static org.junit.contrib.java.lang.system.TextFromStandardInputStream.forbiddenStandardInputStream;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.contrib.java.lang.system.internal.PerThreadInputStream;
+import org.junit.contrib.java.lang.system.internal.SystemInMock;
+import org.junit.rules.TemporaryFolder;
 import org.junit.rules.Timeout;
 import org.junit.runners.model.Statement;
 
@@ -18,6 +40,9 @@ public class TextFromStandardInputStreamTest {
 	@Rule
 	public final Timeout timeout = new Timeout(1000);
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	private final TextFromStandardInputStream systemInMock = emptyStandardInputStream();
 
 	@Test
@@ -63,6 +88,19 @@ public class TextFromStandardInputStreamTest {
 		});
 	}
 	
+	@Test
+	public void providesLinesOfIterator() throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideLines(asList("first text", "second text").iterator());
+				Scanner scanner = new Scanner(System.in);
+				scanner.nextLine();
+				assertThat(scanner.nextLine(), is(equalTo("second text")));
+			}
+		});
+	}
+
 	@Test
 	public void doesNotFailForNoProvidedText() throws Throwable {
 		executeRuleWithStatement(new Statement() {
@@ -75,6 +113,329 @@ public class TextFromStandardInputStreamTest {
 		});
 	}
 
+	@Test
+	public void providesTextEncodedWithDefaultCharsetByBulkRead() throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideText("arbitrary text");
+				byte[] buffer = new byte[100];
+				int numberOfBytes = System.in.read(buffer, 0, buffer.length);
+				String text = new String(buffer, 0, numberOfBytes,
+					Charset.defaultCharset());
+				assertThat(text, is(equalTo("arbitrary text")));
+			}
+		});
+	}
+
+	@Test
+	public void providesMultiByteCharactersToScanner() throws Throwable {
+		final String text = "gr\u00fc\u00dfe \u65e5\u672c \u20ac";
+		assumeTrue(Charset.defaultCharset().newEncoder().canEncode(text));
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideText(text + "\n");
+				Scanner scanner = new Scanner(System.in);
+				assertThat(scanner.nextLine(), is(equalTo(text)));
+			}
+		});
+	}
+
+	@Test
+	public void providesMultiByteCharactersToReader() throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				String text = "gr\u00fc\u00dfe \u65e5\u672c \u20ac";
+				systemInMock.provideBytes(text.getBytes("UTF-8"));
+				systemInMock.deliverInChunks(3);
+				Reader reader = new InputStreamReader(System.in, "UTF-8");
+				StringBuilder readText = new StringBuilder();
+				char[] buffer = new char[2];
+				for (int n = reader.read(buffer); n != -1; n = reader.read(buffer))
+					readText.append(buffer, 0, n);
+				assertThat(readText.toString(), is(equalTo(text)));
+			}
+		});
+	}
+
+	@Test
+	public void skipsBytes() throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideBytes("\u00fcber text".getBytes("UTF-8"));
+				assertThat(System.in.skip(6), is(6L));
+				Scanner scanner = new Scanner(System.in, "UTF-8");
+				assertThat(scanner.nextLine(), is(equalTo("text")));
+			}
+		});
+	}
+
+	@Test
+	public void providesNumberOfAvailableBytes() throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideText("arbitrary text");
+				System.in.read();
+				assertThat(System.in.available(), is(13));
+			}
+		});
+	}
+
+	@Test
+	public void providesContentOfFile() throws Throwable {
+		final File file = temporaryFolder.newFile();
+		writeStringToFile(file, "text from file\n", "UTF-8");
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideFile(file);
+				Scanner scanner = new Scanner(System.in, "UTF-8");
+				assertThat(scanner.nextLine(), is(equalTo("text from file")));
+			}
+		});
+	}
+
+	@Test
+	public void providesContentOfResource() throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideResource("input.txt");
+				Scanner scanner = new Scanner(System.in, "UTF-8");
+				assertThat(scanner.nextLine(), is(equalTo("text from resource")));
+			}
+		});
+	}
+
+	@Test
+	public void providesBuffersThroughChannel() throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				ByteBuffer buffer = ByteBuffer.wrap(new byte[] {1, 2, 3});
+				systemInMock.provideBuffers(buffer);
+				ByteBuffer dst = ByteBuffer.allocateDirect(8);
+				((ReadableByteChannel) System.in).read(dst);
+				assertThat(dst.position(), is(3));
+				assertThat(dst.get(2), is((byte) 3));
+				assertThat(buffer.position(), is(0));
+			}
+		});
+	}
+
+	@Test
+	public void answersPromptsThatHaveBeenWritten() throws Throwable {
+		final StandardOutputStreamLog log = new StandardOutputStreamLog(LogMode.LOG_ONLY);
+		Statement statement = new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.answerPrompts(log)
+					.answer("Continue?", "y\n")
+					.answer("Name:", "Ada\n");
+				Scanner scanner = new Scanner(System.in);
+				System.out.print("Continue?");
+				assertThat(scanner.nextLine(), is(equalTo("y")));
+				System.out.print("Name:");
+				assertThat(scanner.nextLine(), is(equalTo("Ada")));
+			}
+		};
+		log.apply(systemInMock.apply(statement, null), null).evaluate();
+	}
+
+	@Test
+	public void availableDoesNotBlockWhileOtherThreadWaitsForPrompt()
+			throws Throwable {
+		final StandardOutputStreamLog log = new StandardOutputStreamLog(LogMode.LOG_ONLY);
+		Statement statement = new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.answerPrompts(log).answer("Name:", "Ada\n");
+				Thread reader = new Thread() {
+					@Override
+					public void run() {
+						try {
+							System.in.read();
+						} catch (IOException e) {
+							//the test is only interested in available()
+						}
+					}
+				};
+				reader.start();
+				Thread.sleep(100);
+				long start = System.currentTimeMillis();
+				assertThat(System.in.available(), is(0));
+				assertThat(System.currentTimeMillis() - start < 500, is(true));
+				System.out.print("Name:");
+				reader.join();
+			}
+		};
+		log.apply(systemInMock.apply(statement, null), null).evaluate();
+	}
+
+	@Test
+	public void readReturnsAtMostASingleChunk() throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideText("arbitrary text");
+				systemInMock.deliverInChunks(4, 0);
+				byte[] buffer = new byte[100];
+				assertThat(System.in.read(buffer, 0, buffer.length), is(4));
+			}
+		});
+	}
+
+	@Test
+	public void readBlocksUntilNextChunkArrives() throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideText("arbitrary text");
+				systemInMock.deliverInChunks(4, 0, 200);
+				byte[] buffer = new byte[100];
+				System.in.read(buffer, 0, buffer.length);
+				long start = System.currentTimeMillis();
+				System.in.read(buffer, 0, buffer.length);
+				assertThat(System.currentTimeMillis() - start,
+					is(greaterThanOrEqualTo(190L)));
+			}
+		});
+	}
+
+	@Test
+	public void availableDoesNotBlockWhileOtherThreadWaitsForChunk()
+			throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideText("arbitrary text");
+				systemInMock.deliverInChunks(4, 1000);
+				Thread reader = new Thread() {
+					@Override
+					public void run() {
+						try {
+							System.in.read();
+						} catch (IOException e) {
+							//the test is only interested in available()
+						}
+					}
+				};
+				reader.start();
+				Thread.sleep(100);
+				long start = System.currentTimeMillis();
+				assertThat(System.in.available(), is(0));
+				assertThat(System.currentTimeMillis() - start < 500, is(true));
+				reader.interrupt();
+				reader.join();
+			}
+		});
+	}
+
+	@Test
+	public void rateMustBePositive() {
+		Throwable exception = exceptionThrownBy(
+			new com.github.stefanbirkner.fishbowl.Statement() {
+				public void evaluate() throws Throwable {
+					systemInMock.deliverAtRate(4, 0);
+				}
+			});
+		assertThat(exception, is(instanceOf(IllegalArgumentException.class)));
+	}
+
+	@Test
+	public void delaysMustNotBeNegative() {
+		Throwable exception = exceptionThrownBy(
+			new com.github.stefanbirkner.fishbowl.Statement() {
+				public void evaluate() throws Throwable {
+					systemInMock.deliverInChunks(4, 0, -1);
+				}
+			});
+		assertThat(exception, is(instanceOf(IllegalArgumentException.class)));
+	}
+
+	@Test
+	public void providesTextToTestThreadOnlyIfIsolatedPerThread() throws Throwable {
+		final TextFromStandardInputStream isolatedSystemInMock
+			= emptyStandardInputStream().isolatedPerThread();
+		isolatedSystemInMock.apply(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				isolatedSystemInMock.provideText("arbitrary text");
+				final AtomicReference<InputStream> streamOfOtherThread
+					= new AtomicReference<InputStream>();
+				Thread otherThread = new Thread() {
+					@Override
+					public void run() {
+						streamOfOtherThread.set(((PerThreadInputStream) System.in)
+							.getStreamOfCurrentThread());
+					}
+				};
+				otherThread.start();
+				otherThread.join();
+				assertThat(new Scanner(System.in).nextLine(), is(equalTo("arbitrary text")));
+				assertThat(streamOfOtherThread.get(), is(not(instanceOf(SystemInMock.class))));
+			}
+		}, null).evaluate();
+	}
+
+	@Test
+	public void countsConsumedBytesAndReadCalls() throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideText("arbitrary text");
+				System.in.read();
+				System.in.read(new byte[4], 0, 4);
+				assertThat(systemInMock.getConsumedBytes(), is(5L));
+				assertThat(systemInMock.getRemainingBytes(), is(9L));
+				assertThat(systemInMock.getNumberOfReadCalls(), is(2L));
+			}
+		});
+	}
+
+	@Test
+	public void failsIfInputHasNotBeenConsumed() throws Throwable {
+		executeRuleWithStatement(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				systemInMock.provideText("arbitrary text");
+				System.in.read();
+				Throwable exception = exceptionThrownBy(
+					new com.github.stefanbirkner.fishbowl.Statement() {
+						public void evaluate() throws Throwable {
+							systemInMock.assertAllInputConsumed();
+						}
+					});
+				assertThat(exception, is(instanceOf(AssertionError.class)));
+			}
+		});
+	}
+
+	@Test
+	public void failsIfForbiddenInputIsReadEvenIfErrorIsSwallowed() {
+		final TextFromStandardInputStream forbiddenInput
+			= forbiddenStandardInputStream();
+		Throwable exception = exceptionThrownBy(
+			new com.github.stefanbirkner.fishbowl.Statement() {
+				public void evaluate() throws Throwable {
+					forbiddenInput.apply(new Statement() {
+						@Override
+						public void evaluate() throws Throwable {
+							try {
+								System.in.read();
+							} catch (AssertionError ignored) {
+							}
+						}
+					}, null).evaluate();
+				}
+			});
+		assertThat(exception, is(instanceOf(AssertionError.class)));
+	}
+
 	@Test
 	public void restoreSystemIn() throws Throwable {
 		InputStream originalSystemIn = System.in;
@@ -82,6 +443,60 @@ public class TextFromStandardInputStreamTest {
 		assertThat(System.in, is(sameInstance(originalSystemIn)));
 	}
 
+	@Test
+	public void failsWhenTestIsBlockedReadingOriginalSystemIn() throws Throwable {
+		final InputStream originalIn = new BufferedInputStream(
+			new PipedInputStream(new PipedOutputStream()));
+		final TextFromStandardInputStream watchedSystemInMock
+			= emptyStandardInputStream().failWhenBlockedForMillis(100);
+		InputStream inBeforeTest = System.in;
+		System.setIn(originalIn);
+		try {
+			Throwable exception = exceptionThrownBy(
+				new com.github.stefanbirkner.fishbowl.Statement() {
+					public void evaluate() throws Throwable {
+						watchedSystemInMock.apply(new Statement() {
+							@Override
+							public void evaluate() throws Throwable {
+								originalIn.read();
+							}
+						}, null).evaluate();
+					}
+				});
+			assertThat(exception, is(instanceOf(AssertionError.class)));
+		} finally {
+			System.setIn(inBeforeTest);
+		}
+	}
+
+	@Test
+	public void doesNotFailWhenTestIsBlockedReadingOtherStream()
+			throws Throwable {
+		final PipedOutputStream output = new PipedOutputStream();
+		final InputStream otherStream = new PipedInputStream(output);
+		final TextFromStandardInputStream watchedSystemInMock
+			= emptyStandardInputStream().failWhenBlockedForMillis(100);
+		Thread writer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(500);
+					output.write('x');
+					output.flush();
+				} catch (Exception e) {
+					//the reader fails
+				}
+			}
+		};
+		writer.start();
+		watchedSystemInMock.apply(new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				assertThat(otherStream.read(), is((int) 'x'));
+			}
+		}, null).evaluate();
+	}
+
 	private void executeRuleWithStatement(Statement statement) throws Throwable {
 		systemInMock.apply(statement, null).evaluate();
 	}
@@ -0,0 +1,42 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static com.github.stefanbirkner.fishbowl.Fishbowl.exceptionThrownBy;
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.stefanbirkner.fishbowl.Statement;
+import org.junit.Test;
+
+public class JsonParserTest {
+	@Test
+	public void parsesObjectWithAllKindsOfValues() {
+		Object value = JsonParser.parse(
+			"{\"s\": \"a\\\"\\u0062\", \"i\": -12, \"d\": 1.5e1, \"t\": true,"
+				+ " \"f\": false, \"n\": null, \"a\": [1, {}]}");
+		Map<String, Object> expected = new LinkedHashMap<String, Object>();
+		expected.put("s", "a\"b");
+		expected.put("i", -12L);
+		expected.put("d", 15.0);
+		expected.put("t", true);
+		expected.put("f", false);
+		expected.put("n", null);
+		expected.put("a", asList(1L, new LinkedHashMap<String, Object>()));
+		assertThat(value, is(equalTo((Object) expected)));
+	}
+
+	@Test
+	public void rejectsTextWithTrailingCharacters() {
+		Throwable exception = exceptionThrownBy(new Statement() {
+			public void evaluate() throws Throwable {
+				JsonParser.parse("{} x");
+			}
+		});
+		assertThat(exception, is(instanceOf(IllegalArgumentException.class)));
+	}
+}
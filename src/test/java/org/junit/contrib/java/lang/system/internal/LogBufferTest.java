@@ -0,0 +1,69 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class LogBufferTest {
+	private static final String ENCODING = "UTF-8";
+
+	private final LogBuffer buffer = new LogBuffer();
+
+	@Test
+	public void decodesTextThatSpansMultipleChunks() throws Exception {
+		String text = createTextWithMultiByteCharacters(10000);
+		byte[] bytes = text.getBytes(ENCODING);
+		buffer.write(bytes, 0, bytes.length);
+		assertThat(buffer.toString(ENCODING), is(equalTo(text)));
+	}
+
+	@Test
+	public void decodesTextThatIsWrittenByteByByte() throws Exception {
+		String text = createTextWithMultiByteCharacters(10000);
+		for (byte b : text.getBytes(ENCODING))
+			buffer.write(b);
+		assertThat(buffer.toString(ENCODING), is(equalTo(text)));
+	}
+
+	@Test
+	public void providesNumberOfWrittenBytes() throws Exception {
+		byte[] bytes = "äbc".getBytes(ENCODING);
+		buffer.write(bytes, 0, bytes.length);
+		assertThat(buffer.size(), is(4L));
+	}
+
+	@Test
+	public void isEmptyAfterReset() throws Exception {
+		byte[] bytes = "arbitrary text".getBytes(ENCODING);
+		buffer.write(bytes, 0, bytes.length);
+		buffer.reset();
+		assertThat(buffer.toString(ENCODING), is(equalTo("")));
+	}
+
+	@Test
+	public void neitherLosesNorDuplicatesBytesThatAreWrittenWhileTheBufferIsReset()
+		throws Exception {
+		Thread writer = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 100000; ++i)
+					buffer.write('x');
+			}
+		};
+		writer.start();
+		StringBuilder text = new StringBuilder();
+		while (writer.isAlive())
+			text.append(buffer.toStringAndReset(ENCODING));
+		text.append(buffer.toStringAndReset(ENCODING));
+		assertThat(text.length(), is(100000));
+	}
+
+	private String createTextWithMultiByteCharacters(int length) {
+		StringBuilder text = new StringBuilder(length);
+		for (int i = 0; i < length; ++i)
+			text.append(i % 3 == 0 ? '€' : 'a');
+		return text.toString();
+	}
+}